@@ -0,0 +1,21 @@
+package org.cfr.commons.event.api;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Interface to be implemented by the events exchanged in a request/reply conversation.
+ * <p>A reply carries the correlation identifier of the request it answers.</p>
+ *
+ * @author devacfr
+ * @since 1.1
+ * @see org.cfr.commons.event.spring.EventRequestReplyTemplate
+ */
+public interface ICorrelatedEvent {
+
+    /**
+     * Gets the correlation identifier of the conversation.
+     * @return Returns the correlation identifier (never <code>null</code>).
+     */
+    @Nonnull
+    String getCorrelationId();
+}
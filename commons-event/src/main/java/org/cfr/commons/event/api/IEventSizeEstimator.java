@@ -0,0 +1,20 @@
+package org.cfr.commons.event.api;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Strategy interface estimating the memory used by an event, used to cap the memory
+ * of the history of events.
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+public interface IEventSizeEstimator {
+
+    /**
+     * Estimates the memory used by the given <code>event</code>.
+     * @param event the event to estimate (never <code>null</code>).
+     * @return Returns the estimated size in bytes.
+     */
+    long estimateSize(@Nonnull Object event);
+}
@@ -0,0 +1,21 @@
+package org.cfr.commons.event.api;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Interface to be implemented by objects that wish to handle the exceptions thrown by the listeners.
+ * <p>The handler is called on the dispatching thread, implementations should so hand off
+ * the failure as soon as possible (logging, retry, ...).</p>
+ *
+ * @author devacfr
+ * @since 1.1
+ * @see ListenerFailure
+ */
+public interface IListenerFailureHandler {
+
+    /**
+     * Handles the failure of a listener.
+     * @param failure the failure to handle (never <code>null</code>).
+     */
+    void handleFailure(@Nonnull ListenerFailure failure);
+}
@@ -0,0 +1,20 @@
+package org.cfr.commons.event.api;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a listener whose event methods can safely be invoked several times with the same event.
+ * <p>The failed invocations of such listener can be retried by the {@link IListenerFailureHandler}.</p>
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Idempotent {
+}
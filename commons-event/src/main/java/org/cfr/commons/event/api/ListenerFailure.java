@@ -0,0 +1,153 @@
+package org.cfr.commons.event.api;
+
+import javax.annotation.Nonnull;
+
+import org.cfr.commons.util.Assert;
+
+import com.atlassian.event.spi.ListenerInvoker;
+
+/**
+ * Describes the failure of a listener invocation.
+ *
+ * @author devacfr
+ * @since 1.1
+ * @see IListenerFailureHandler
+ */
+public final class ListenerFailure {
+
+    /**
+     * the failed listener.
+     */
+    private final Object listener;
+
+    /**
+     * invoker allowing to invoke again the listener.
+     */
+    private final ListenerInvoker invoker;
+
+    /**
+     * the dispatched event.
+     */
+    private final Object event;
+
+    /**
+     * the exception thrown by the listener.
+     */
+    private final Throwable cause;
+
+    /**
+     * the number of the failed attempts.
+     */
+    private final int attempt;
+
+    /**
+     * the time in milliseconds of the failure.
+     */
+    private final long timestamp;
+
+    /**
+     * Create a new failure for the first attempt.
+     * @param listener the failed listener.
+     * @param invoker the invoker of listener.
+     * @param event the dispatched event.
+     * @param cause the exception thrown by the listener.
+     */
+    public ListenerFailure(@Nonnull final Object listener, @Nonnull final ListenerInvoker invoker,
+            @Nonnull final Object event, @Nonnull final Throwable cause) {
+        this(listener, invoker, event, cause, 1);
+    }
+
+    private ListenerFailure(final Object listener, final ListenerInvoker invoker, final Object event,
+            final Throwable cause, final int attempt) {
+        this.listener = Assert.notNull(listener);
+        this.invoker = Assert.notNull(invoker);
+        this.event = Assert.notNull(event);
+        this.cause = Assert.notNull(cause);
+        this.attempt = attempt;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Create the failure of the next attempt.
+     * @param newCause the exception thrown by the listener during the new attempt.
+     * @return Returns new instance of {@link ListenerFailure}.
+     */
+    @Nonnull
+    public ListenerFailure nextAttempt(@Nonnull final Throwable newCause) {
+        return new ListenerFailure(listener, invoker, event, newCause, attempt + 1);
+    }
+
+    /**
+     * Gets the indicating whether the listener can be invoked again.
+     * @return Returns <code>true</code> whether the listener is annotated with {@link Idempotent},
+     * otherwise <code>false</code>.
+     */
+    public boolean isRetryable() {
+        return listener.getClass().isAnnotationPresent(Idempotent.class);
+    }
+
+    /**
+     * Gets the key identifying identical failures: same listener type, event type and exception type.
+     * <p>The exception message is not part of the key, as it often holds event-specific values.</p>
+     * @return Returns the key identifying identical failures.
+     */
+    @Nonnull
+    public String getKey() {
+        return listener.getClass().getName() + '|' + event.getClass().getName() + '|' + cause.getClass().getName();
+    }
+
+    /**
+     * @return Returns the failed listener.
+     */
+    @Nonnull
+    public Object getListener() {
+        return listener;
+    }
+
+    /**
+     * @return Returns the invoker of listener.
+     */
+    @Nonnull
+    public ListenerInvoker getInvoker() {
+        return invoker;
+    }
+
+    /**
+     * @return Returns the dispatched event.
+     */
+    @Nonnull
+    public Object getEvent() {
+        return event;
+    }
+
+    /**
+     * @return Returns the exception thrown by the listener.
+     */
+    @Nonnull
+    public Throwable getCause() {
+        return cause;
+    }
+
+    /**
+     * @return Returns the number of failed attempts, starting at 1.
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    /**
+     * @return Returns the time in milliseconds of the failure.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ListenerFailure [listener=" + listener + ", event=" + event + ", cause=" + cause + ", attempt="
+                + attempt + "]";
+    }
+}
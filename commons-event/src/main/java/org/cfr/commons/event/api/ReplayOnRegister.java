@@ -0,0 +1,22 @@
+package org.cfr.commons.event.api;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a listener which receives, when it is registered, the recent events retained
+ * by the event publisher before its registration.
+ * <p>The retained events are replayed in publication order. The history of events has to be enabled
+ * on the event publisher, see {@link org.cfr.commons.event.spring.EventPublisherFactoryBean#setEventHistorySize(int)}.</p>
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ReplayOnRegister {
+}
@@ -0,0 +1,102 @@
+package org.cfr.commons.event.spring;
+
+import javax.annotation.Nonnull;
+
+import org.cfr.commons.util.Assert;
+
+import com.atlassian.event.api.EventPublisher;
+
+/**
+ * {@link EventPublisher} owning its own listener registry but sharing the
+ * {@link com.atlassian.event.spi.EventDispatcher} (and so the executor) of its parent.
+ * <p>Publishing an event only scans the listeners registered on this publisher.
+ * The event is forwarded to the parent publisher only when
+ * {@link #isPropagateToParent()} returns <code>true</code>.</p>
+ * <p>Instances are created with {@link EventPublisherFactoryBean#createChildPublisher(boolean)}.</p>
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+public class ChildEventPublisher implements EventPublisher {
+
+    /**
+     * parent publisher.
+     */
+    private final EventPublisher parent;
+
+    /**
+     * publisher managing the listeners registered in this scope.
+     */
+    private final EventPublisher delegate;
+
+    /**
+     * indicate whether the published events are forwarded to the parent.
+     */
+    private final boolean propagateToParent;
+
+    /**
+     * Create a new child publisher.
+     * @param parent the parent publisher (can not be <code>null</code>).
+     * @param delegate the publisher managing the listeners of this scope (can not be <code>null</code>).
+     * @param propagateToParent <code>true</code> whether the events are forwarded to the parent.
+     */
+    public ChildEventPublisher(@Nonnull final EventPublisher parent, @Nonnull final EventPublisher delegate,
+            final boolean propagateToParent) {
+        this.parent = Assert.notNull(parent, "parent publisher is required");
+        this.delegate = Assert.notNull(delegate, "delegate publisher is required");
+        this.propagateToParent = propagateToParent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void publish(final Object event) {
+        delegate.publish(event);
+        if (propagateToParent) {
+            parent.publish(event);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void register(final Object listener) {
+        delegate.register(listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void unregister(final Object listener) {
+        delegate.unregister(listener);
+    }
+
+    /**
+     * Unregisters all listeners of this scope, the listeners of parent publisher are kept.
+     */
+    @Override
+    public void unregisterAll() {
+        delegate.unregisterAll();
+    }
+
+    /**
+     * Gets the parent publisher.
+     * @return Returns the parent publisher (never <code>null</code>).
+     */
+    @Nonnull
+    public EventPublisher getParent() {
+        return parent;
+    }
+
+    /**
+     * Gets the indicating whether the published events are forwarded to the parent publisher.
+     * @return Returns <code>true</code> whether the published events are forwarded to the parent publisher,
+     * otherwise <code>false</code>.
+     */
+    public boolean isPropagateToParent() {
+        return propagateToParent;
+    }
+}
@@ -0,0 +1,374 @@
+package org.cfr.commons.event.spring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import org.cfr.commons.event.api.IListenerFailureHandler;
+import org.cfr.commons.event.api.ListenerFailure;
+import org.cfr.commons.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * {@link IListenerFailureHandler} processing the listener failures off the dispatching thread.
+ * <p>The dispatching thread only queues the failure, a single background thread:</p>
+ * <ul>
+ * <li>retries with an exponential backoff the listeners annotated with {@link org.cfr.commons.event.api.Idempotent},</li>
+ * <li>logs the failures, identical failures (same listener type, event type and exception type) are logged
+ * once per throttle period, the next ones are only counted,</li>
+ * <li>keeps the last failures in a bounded dead-letter queue.</li>
+ * </ul>
+ * <p>When the pending queue is full, the new failures are dropped and counted. The throttle statistics expire when
+ * no identical failure occurred during a throttle period, and at most {@link #MAX_THROTTLED_FAILURES} kinds of
+ * failures are tracked.</p>
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+public class DeadLetterFailureHandler implements IListenerFailureHandler, DisposableBean {
+
+    /**
+     * Default capacity of the queue of failures waiting to be processed.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    /**
+     * Default capacity of the dead-letter queue.
+     */
+    public static final int DEFAULT_DEAD_LETTER_CAPACITY = 100;
+
+    /**
+     * Maximum number of kinds of failures whose throttle statistics are kept.
+     */
+    public static final int MAX_THROTTLED_FAILURES = 1000;
+
+    /**
+     * log instance.
+     */
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * failures waiting to be processed.
+     */
+    private final BlockingQueue<ListenerFailure> pendingFailures;
+
+    /**
+     * last failures.
+     */
+    private final BlockingQueue<ListenerFailure> deadLetters;
+
+    /**
+     * throttle statistics by failure key.
+     */
+    private volatile Cache<String, FailureStatistic> statistics;
+
+    /**
+     * background thread processing the failures and the retries.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * indicate whether a drain of pending failures is scheduled.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    /**
+     * number of failures dropped because the pending queue was full.
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * period in milliseconds during which identical failures are logged once.
+     */
+    private long throttlePeriod = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * maximum number of retries of idempotent listeners.
+     */
+    private int maxRetries = 3;
+
+    /**
+     * delay in milliseconds before the first retry, doubled for each next retry.
+     */
+    private long retryBackoff = 100;
+
+    /**
+     * process the pending failures.
+     */
+    private final Runnable drainTask = new Runnable() {
+
+        @Override
+        public void run() {
+            try {
+                ListenerFailure failure;
+                while ((failure = pendingFailures.poll()) != null) {
+                    process(failure);
+                }
+            } finally {
+                draining.set(false);
+            }
+            if (!pendingFailures.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    };
+
+    /**
+     * Create a new handler with default capacities.
+     */
+    public DeadLetterFailureHandler() {
+        this(DEFAULT_QUEUE_CAPACITY, DEFAULT_DEAD_LETTER_CAPACITY);
+    }
+
+    /**
+     * Create a new handler.
+     * @param queueCapacity the capacity of the queue of failures waiting to be processed.
+     * @param deadLetterCapacity the capacity of the dead-letter queue.
+     */
+    public DeadLetterFailureHandler(final int queueCapacity, final int deadLetterCapacity) {
+        Assert.isTrue(queueCapacity > 0, "queueCapacity must be positive");
+        Assert.isTrue(deadLetterCapacity > 0, "deadLetterCapacity must be positive");
+        this.pendingFailures = new ArrayBlockingQueue<ListenerFailure>(queueCapacity);
+        this.deadLetters = new ArrayBlockingQueue<ListenerFailure>(deadLetterCapacity);
+        this.statistics = createStatistics(throttlePeriod);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(runnable, "event-failure-handler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handleFailure(@Nonnull final ListenerFailure failure) {
+        // identical failures are throttled on the dispatching thread, except the ones which will be retried
+        if (!isRetryAllowed(failure) && !acquire(failure)) {
+            return;
+        }
+        if (!pendingFailures.offer(failure)) {
+            droppedCount.incrementAndGet();
+            return;
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Gets the last failures, the oldest first.
+     * @return Returns a copy of dead-letter queue.
+     */
+    @Nonnull
+    public List<ListenerFailure> getDeadLetters() {
+        return new ArrayList<ListenerFailure>(deadLetters);
+    }
+
+    /**
+     * Removes and returns the last failures, the oldest first.
+     * @return Returns the removed failures.
+     */
+    @Nonnull
+    public List<ListenerFailure> drainDeadLetters() {
+        List<ListenerFailure> failures = new ArrayList<ListenerFailure>(deadLetters.size());
+        deadLetters.drainTo(failures);
+        return failures;
+    }
+
+    /**
+     * @return Returns the number of failures dropped because the pending queue was full.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Sets the period in milliseconds during which identical failures are logged once.
+     * <p>Default is one minute.</p>
+     * @param throttlePeriod the throttle period in milliseconds.
+     */
+    public void setThrottlePeriod(final long throttlePeriod) {
+        Assert.isTrue(throttlePeriod >= 0, "throttlePeriod must not be negative");
+        this.throttlePeriod = throttlePeriod;
+        this.statistics = createStatistics(throttlePeriod);
+    }
+
+    /**
+     * Sets the maximum number of retries of listeners annotated with {@link org.cfr.commons.event.api.Idempotent}.
+     * <p>Default is 3, 0 disables the retries.</p>
+     * @param maxRetries the maximum number of retries.
+     */
+    public void setMaxRetries(final int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Sets the delay in milliseconds before the first retry, the delay is doubled for each next retry.
+     * <p>Default is 100 milliseconds.</p>
+     * @param retryBackoff the initial backoff in milliseconds.
+     */
+    public void setRetryBackoff(final long retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    /**
+     * Stops the background thread, the pending failures and retries are discarded.
+     */
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Starts the processing of the pending failures, unless it is already running.
+     */
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(drainTask);
+            } catch (RuntimeException ex) {
+                // handler is destroyed
+                draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Retries the failure if allowed, otherwise logs it and keeps it as dead letter.
+     */
+    private void process(final ListenerFailure failure) {
+        if (isRetryAllowed(failure)) {
+            scheduleRetry(failure);
+            return;
+        }
+        FailureStatistic statistic = statistics.getIfPresent(failure.getKey());
+        int suppressed = statistic != null ? statistic.resetSuppressed() : 0;
+        if (log.isErrorEnabled()) {
+            StringBuilder message = new StringBuilder("There was an exception thrown by listener '").append(
+                failure.getListener()).append("' dispatching event '").append(failure.getEvent()).append('\'');
+            if (failure.getAttempt() > 1) {
+                message.append(" after ").append(failure.getAttempt()).append(" attempts");
+            }
+            if (suppressed > 0) {
+                message.append(" (").append(suppressed).append(" identical failures suppressed)");
+            }
+            log.error(message.toString(), failure.getCause());
+        }
+        while (!deadLetters.offer(failure)) {
+            // evict the oldest failure
+            deadLetters.poll();
+        }
+    }
+
+    /**
+     * Schedules the next invocation of the failed listener with an exponential backoff.
+     */
+    private void scheduleRetry(final ListenerFailure failure) {
+        long delay = retryBackoff << Math.min(failure.getAttempt() - 1, 30);
+        if (log.isDebugEnabled()) {
+            log.debug("Retry in " + delay + "ms " + failure);
+        }
+        scheduler.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    failure.getInvoker().invoke(failure.getEvent());
+                } catch (RuntimeException ex) {
+                    handleFailure(failure.nextAttempt(ex));
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return Returns <code>true</code> whether the failed listener can be invoked again.
+     */
+    private boolean isRetryAllowed(final ListenerFailure failure) {
+        return failure.isRetryable() && failure.getAttempt() <= maxRetries;
+    }
+
+    /**
+     * Counts the failure in the statistic of its key.
+     * @return Returns <code>true</code> whether the failure has to be logged,
+     * <code>false</code> if it is suppressed.
+     */
+    private boolean acquire(final ListenerFailure failure) {
+        String key = failure.getKey();
+        Cache<String, FailureStatistic> cache = statistics;
+        FailureStatistic statistic = cache.getIfPresent(key);
+        if (statistic == null) {
+            FailureStatistic newStatistic = new FailureStatistic();
+            statistic = cache.asMap().putIfAbsent(key, newStatistic);
+            if (statistic == null) {
+                statistic = newStatistic;
+            }
+        }
+        return statistic.acquire(failure.getTimestamp(), throttlePeriod);
+    }
+
+    /**
+     * @return Returns the throttle statistics, expiring once unused during a throttle period.
+     */
+    private static Cache<String, FailureStatistic> createStatistics(final long throttlePeriod) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(MAX_THROTTLED_FAILURES)
+                .expireAfterAccess(throttlePeriod, TimeUnit.MILLISECONDS)
+                .<String, FailureStatistic> build();
+    }
+
+    /**
+     * Throttle statistic of identical failures.
+     */
+    private static final class FailureStatistic {
+
+        /**
+         * start of current throttle window.
+         */
+        private long windowStart = Long.MIN_VALUE;
+
+        /**
+         * number of failures suppressed since the last logged one.
+         */
+        private int suppressed;
+
+        /**
+         * @return Returns <code>true</code> whether the failure at <code>now</code> opens a new throttle window,
+         * otherwise counts it as suppressed.
+         */
+        synchronized boolean acquire(final long now, final long period) {
+            if (windowStart == Long.MIN_VALUE || now - windowStart >= period) {
+                windowStart = now;
+                return true;
+            }
+            suppressed++;
+            return false;
+        }
+
+        /**
+         * @return Returns the number of suppressed failures, and resets it.
+         */
+        synchronized int resetSuppressed() {
+            int count = suppressed;
+            suppressed = 0;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package org.cfr.commons.event.spring;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import org.cfr.commons.event.api.IEventSizeEstimator;
+import org.cfr.commons.util.Assert;
+
+/**
+ * Bounded history of the recent published events.
+ * <p>The history keeps a ring of events by event type, capped by the number of events of a type
+ * and by the estimated memory of all retained events. When a cap is reached, the oldest events are evicted.</p>
+ * <p>This class is thread-safe.</p>
+ *
+ * @author devacfr
+ * @since 1.1
+ * @see ReplayingEventPublisher
+ */
+public class EventHistory {
+
+    /**
+     * Default estimated size of an event in bytes.
+     */
+    public static final long DEFAULT_EVENT_SIZE = 256;
+
+    /**
+     * Estimator returning {@link #DEFAULT_EVENT_SIZE} for any event.
+     */
+    public static final IEventSizeEstimator DEFAULT_SIZE_ESTIMATOR = new IEventSizeEstimator() {
+
+        @Override
+        public long estimateSize(final Object event) {
+            return DEFAULT_EVENT_SIZE;
+        }
+    };
+
+    /**
+     * Orders the retained events in publication order.
+     */
+    private static final Comparator<RetainedEvent> SEQUENCE_COMPARATOR = new Comparator<RetainedEvent>() {
+
+        @Override
+        public int compare(final RetainedEvent o1, final RetainedEvent o2) {
+            return o1.sequence < o2.sequence ? -1 : (o1.sequence == o2.sequence ? 0 : 1);
+        }
+    };
+
+    /**
+     * rings of retained events by event type.
+     */
+    private final Map<Class<?>, Deque<RetainedEvent>> rings = new LinkedHashMap<Class<?>, Deque<RetainedEvent>>();
+
+    /**
+     * maximum number of retained events by event type.
+     */
+    private final int maxEventsPerType;
+
+    /**
+     * maximum estimated memory of all retained events.
+     */
+    private final long maxBytes;
+
+    /**
+     * event size estimator.
+     */
+    private final IEventSizeEstimator sizeEstimator;
+
+    /**
+     * estimated memory of all retained events.
+     */
+    private long totalBytes;
+
+    /**
+     * publication sequence.
+     */
+    private long sequence;
+
+    /**
+     * Create a new history.
+     * @param maxEventsPerType the maximum number of retained events by event type.
+     * @param maxBytes the maximum estimated memory in bytes of all retained events.
+     * @param sizeEstimator the event size estimator.
+     */
+    public EventHistory(final int maxEventsPerType, final long maxBytes, @Nonnull final IEventSizeEstimator sizeEstimator) {
+        Assert.isTrue(maxEventsPerType > 0, "maxEventsPerType must be positive");
+        Assert.isTrue(maxBytes > 0, "maxBytes must be positive");
+        this.maxEventsPerType = maxEventsPerType;
+        this.maxBytes = maxBytes;
+        this.sizeEstimator = Assert.notNull(sizeEstimator);
+    }
+
+    /**
+     * Retains the given <code>event</code>.
+     * <p>An event larger than the memory cap is not retained.</p>
+     * @param event the published event.
+     */
+    public void add(@Nonnull final Object event) {
+        long size = sizeEstimator.estimateSize(event);
+        if (size > maxBytes) {
+            return;
+        }
+        synchronized (rings) {
+            Deque<RetainedEvent> ring = rings.get(event.getClass());
+            if (ring == null) {
+                ring = new ArrayDeque<RetainedEvent>();
+                rings.put(event.getClass(), ring);
+            }
+            if (ring.size() == maxEventsPerType) {
+                totalBytes -= ring.removeFirst().size;
+            }
+            ring.addLast(new RetainedEvent(event, size, sequence++));
+            totalBytes += size;
+            while (totalBytes > maxBytes) {
+                evictOldest();
+            }
+        }
+    }
+
+    /**
+     * Gets the retained events assignable to one of the given event types, in publication order.
+     * @param eventTypes the event types, an empty set selects all events.
+     * @return Returns the retained events.
+     */
+    @Nonnull
+    public List<Object> getEvents(@Nonnull final Iterable<Class<?>> eventTypes) {
+        List<RetainedEvent> selection = new ArrayList<RetainedEvent>();
+        synchronized (rings) {
+            for (Map.Entry<Class<?>, Deque<RetainedEvent>> entry : rings.entrySet()) {
+                if (isSupported(eventTypes, entry.getKey())) {
+                    selection.addAll(entry.getValue());
+                }
+            }
+        }
+        Collections.sort(selection, SEQUENCE_COMPARATOR);
+        List<Object> events = new ArrayList<Object>(selection.size());
+        for (RetainedEvent retainedEvent : selection) {
+            events.add(retainedEvent.event);
+        }
+        return events;
+    }
+
+    /**
+     * @return Returns the number of retained events.
+     */
+    public int size() {
+        int size = 0;
+        synchronized (rings) {
+            for (Deque<RetainedEvent> ring : rings.values()) {
+                size += ring.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return Returns the estimated memory in bytes of all retained events.
+     */
+    public long getTotalBytes() {
+        synchronized (rings) {
+            return totalBytes;
+        }
+    }
+
+    /**
+     * Removes all retained events.
+     */
+    public void clear() {
+        synchronized (rings) {
+            rings.clear();
+            totalBytes = 0;
+        }
+    }
+
+    /**
+     * Evicts the oldest event of all rings, must be called holding the lock.
+     */
+    private void evictOldest() {
+        Deque<RetainedEvent> oldestRing = null;
+        for (Deque<RetainedEvent> ring : rings.values()) {
+            if (!ring.isEmpty() && (oldestRing == null || ring.getFirst().sequence < oldestRing.getFirst().sequence)) {
+                oldestRing = ring;
+            }
+        }
+        totalBytes -= oldestRing.removeFirst().size;
+    }
+
+    /**
+     * @return Returns <code>true</code> whether an event of the given class is one of the given types,
+     * or the given types are empty.
+     */
+    private static boolean isSupported(final Iterable<Class<?>> eventTypes, final Class<?> eventClass) {
+        boolean empty = true;
+        for (Class<?> eventType : eventTypes) {
+            empty = false;
+            if (eventType.isAssignableFrom(eventClass)) {
+                return true;
+            }
+        }
+        return empty;
+    }
+
+    /**
+     * Event retained in a ring.
+     */
+    private static final class RetainedEvent {
+
+        /**
+         * retained event.
+         */
+        private final Object event;
+
+        /**
+         * estimated memory of the event in bytes.
+         */
+        private final long size;
+
+        /**
+         * publication order of the event.
+         */
+        private final long sequence;
+
+        /**
+         * Create a new retained event.
+         */
+        RetainedEvent(final Object event, final long size, final long sequence) {
+            this.event = event;
+            this.size = size;
+            this.sequence = sequence;
+        }
+    }
+}
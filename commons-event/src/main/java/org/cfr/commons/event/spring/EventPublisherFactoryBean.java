@@ -12,7 +12,10 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 
 import org.cfr.commons.event.api.IEventPublisherAware;
+import org.cfr.commons.event.api.IEventSizeEstimator;
+import org.cfr.commons.event.api.IListenerFailureHandler;
 import org.cfr.commons.event.api.ISupportedListenerHandler;
+import org.cfr.commons.util.Assert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.Aware;
@@ -26,6 +29,8 @@ import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
 import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
 import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
 
 import com.atlassian.event.api.EventListener;
 import com.atlassian.event.api.EventPublisher;
@@ -51,7 +56,18 @@ import com.google.common.collect.ImmutableList;
  * @author devacfr
  * @since 1.0
  */
-public class EventPublisherFactoryBean implements FactoryBean<EventPublisher>, InitializingBean, BeanDefinitionRegistryPostProcessor {
+public class EventPublisherFactoryBean implements FactoryBean<EventPublisher>, InitializingBean,
+        BeanDefinitionRegistryPostProcessor, ApplicationContextAware {
+
+    /**
+     * Default maximum estimated memory of the history of events: 1 MB.
+     */
+    public static final long DEFAULT_EVENT_HISTORY_MAX_BYTES = 1024 * 1024;
+
+    /**
+     * System property enabling the startup profiling when the factory property is not set.
+     */
+    public static final String STARTUP_PROFILING_PROPERTY = "org.cfr.commons.event.startupProfiling";
 
     /**
      * log instance.
@@ -68,6 +84,11 @@ public class EventPublisherFactoryBean implements FactoryBean<EventPublisher>, I
      */
     private EventPublisher eventPublisher;
 
+    /**
+     * {@link EventDispatcher} shared by the exposed {@link EventPublisher} and its children.
+     */
+    private EventDispatcher eventDispatcher;
+
     /**
      * indicate the synchronization between each event type dispatching.
      */
@@ -91,6 +112,41 @@ public class EventPublisherFactoryBean implements FactoryBean<EventPublisher>, I
      */
     private ExecutorService executorService;
 
+    /**
+     * maximum number of retained events by event type, 0 disables the history of events.
+     */
+    private int eventHistorySize = 0;
+
+    /**
+     * maximum estimated memory in bytes of all retained events.
+     */
+    private long eventHistoryMaxBytes = DEFAULT_EVENT_HISTORY_MAX_BYTES;
+
+    /**
+     * estimator of memory used by the retained events.
+     */
+    private IEventSizeEstimator eventSizeEstimator = EventHistory.DEFAULT_SIZE_ESTIMATOR;
+
+    /**
+     * indicate whether the time spent by the post-processors is recorded and reported.
+     */
+    private boolean startupProfiling = Boolean.getBoolean(STARTUP_PROFILING_PROPERTY);
+
+    /**
+     * number of beans and classes in the startup report.
+     */
+    private int startupReportSize = 20;
+
+    /**
+     * profiler of the post-processors.
+     */
+    private StartupProfiler startupProfiler = new StartupProfiler(false, 0);
+
+    /**
+     * context declaring this factory, <code>null</code> if declared in a plain bean factory.
+     */
+    private ApplicationContext applicationContext;
+
     /**
      * {@inheritDoc}
      */
@@ -108,13 +164,49 @@ public class EventPublisherFactoryBean implements FactoryBean<EventPublisher>, I
         } else {
             executorFactory = new SpringEventExecutorFactory(this.executorService);
         }
-        EventDispatcher eventDispatcher = new AsynchronousAbleEventDispatcher(executorFactory);
+        eventDispatcher = new AsynchronousAbleEventDispatcher(executorFactory);
+        eventPublisher = createEventPublisher();
+        if (eventHistorySize > 0) {
+            EventHistory history = new EventHistory(eventHistorySize, eventHistoryMaxBytes, eventSizeEstimator);
+            eventPublisher = new ReplayingEventPublisher(eventPublisher, history, eventDispatcher, listenerHandlers);
+        }
+    }
+
+    /**
+     * Create a new {@link EventPublisher} using the shared {@link EventDispatcher}.
+     * @return Returns new instance of {@link EventPublisher}.
+     */
+    protected EventPublisher createEventPublisher() {
         if (!isBlockingDispatch()) {
-            eventPublisher = new LockFreeEventPublisher(eventDispatcher, listenerHandlers);
-        } else {
-            eventPublisher = new EventPublisherImpl(eventDispatcher, listenerHandlers);
+            return new LockFreeEventPublisher(eventDispatcher, listenerHandlers);
         }
+        return new EventPublisherImpl(eventDispatcher, listenerHandlers);
+    }
 
+    /**
+     * Create a child publisher of {@link EventPublisher} exposed by this factory.
+     * <p>The child shares the executor of its parent but keeps its own listener registry.</p>
+     * @param propagateToParent <code>true</code> whether the events published on the child
+     * are also published on the parent.
+     * @return Returns new instance of {@link ChildEventPublisher}.
+     * @see #createChildPublisher(EventPublisher, boolean)
+     */
+    public ChildEventPublisher createChildPublisher(final boolean propagateToParent) {
+        return createChildPublisher(eventPublisher, propagateToParent);
+    }
+
+    /**
+     * Create a child publisher of the given <code>parent</code> publisher, allowing to build
+     * a hierarchy of publishers.
+     * <p>The child shares the executor of this factory but keeps its own listener registry.</p>
+     * @param parent the parent publisher (can not be <code>null</code>).
+     * @param propagateToParent <code>true</code> whether the events published on the child
+     * are also published on the parent.
+     * @return Returns new instance of {@link ChildEventPublisher}.
+     */
+    public ChildEventPublisher createChildPublisher(final EventPublisher parent, final boolean propagateToParent) {
+        Assert.state(eventDispatcher != null, "the event publisher factory is not initialized");
+        return new ChildEventPublisher(parent, createEventPublisher(), propagateToParent);
     }
 
     /**
@@ -201,6 +293,74 @@ public class EventPublisherFactoryBean implements FactoryBean<EventPublisher>, I
         this.boundedQueue = boundedQueue;
     }
 
+    /**
+     * Sets the handler of exceptions thrown by the listeners.
+     * <p>If not set, the exceptions are logged by the dispatcher on the dispatching thread.</p>
+     * @param failureHandler handler of listener exceptions.
+     * @see DeadLetterFailureHandler
+     */
+    public void setFailureHandler(final IListenerFailureHandler failureHandler) {
+        this.listenerHandlers.setFailureHandler(failureHandler);
+    }
+
+    /**
+     * Sets the maximum number of events retained by event type, allowing the listeners annotated with
+     * {@link org.cfr.commons.event.api.ReplayOnRegister} to receive the events published before their registration.
+     * <p>Default is <code>0</code>, the history of events is disabled.</p>
+     * @param eventHistorySize the maximum number of retained events by event type.
+     * @see ReplayingEventPublisher
+     */
+    public void setEventHistorySize(final int eventHistorySize) {
+        this.eventHistorySize = eventHistorySize;
+    }
+
+    /**
+     * Sets the maximum estimated memory in bytes of all retained events.
+     * <p>Default is {@link #DEFAULT_EVENT_HISTORY_MAX_BYTES}.</p>
+     * @param eventHistoryMaxBytes the maximum estimated memory in bytes.
+     * @see #setEventSizeEstimator(IEventSizeEstimator)
+     */
+    public void setEventHistoryMaxBytes(final long eventHistoryMaxBytes) {
+        this.eventHistoryMaxBytes = eventHistoryMaxBytes;
+    }
+
+    /**
+     * Sets the estimator of memory used by the retained events.
+     * <p>Default estimates each event to {@link EventHistory#DEFAULT_EVENT_SIZE} bytes.</p>
+     * @param eventSizeEstimator the event size estimator.
+     */
+    public void setEventSizeEstimator(final IEventSizeEstimator eventSizeEstimator) {
+        this.eventSizeEstimator = Assert.notNull(eventSizeEstimator);
+    }
+
+    /**
+     * Sets the indicating whether the time spent by the post-processors on each bean is recorded
+     * (listener detection, registration and aware-injection) and reported at the end of the context refresh.
+     * <p>Default is the value of system property {@link #STARTUP_PROFILING_PROPERTY}, <code>false</code> if not set.</p>
+     * @param startupProfiling <code>true</code> to enable the startup profiling.
+     * @see StartupProfiler
+     */
+    public void setStartupProfiling(final boolean startupProfiling) {
+        this.startupProfiling = startupProfiling;
+    }
+
+    /**
+     * Sets the number of beans and classes in the startup report.
+     * <p>Default is <code>20</code>.</p>
+     * @param startupReportSize the number of beans and classes in the startup report.
+     */
+    public void setStartupReportSize(final int startupReportSize) {
+        this.startupReportSize = startupReportSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setApplicationContext(final ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
     /**
      * Sets the executor service.
      * @param executorService executor service
@@ -223,6 +383,13 @@ public class EventPublisherFactoryBean implements FactoryBean<EventPublisher>, I
     @Override
     public void postProcessBeanFactory(final ConfigurableListableBeanFactory beanFactory) {
         // register Post processor
+        startupProfiler = new StartupProfiler(startupProfiling, startupReportSize);
+        if (startupProfiling) {
+            // emits the report at the end of refresh of this context only, a singleton is not aware-injected
+            startupProfiler.setApplicationContext(applicationContext);
+            beanFactory.registerSingleton(StartupProfiler.class.getName() + '#' + System.identityHashCode(this),
+                startupProfiler);
+        }
         beanFactory.addBeanPostProcessor(new EventBeanPostProcessor());
         beanFactory.addBeanPostProcessor(new EventListenerAwareProcessor(beanFactory));
     }
@@ -281,12 +448,17 @@ public class EventPublisherFactoryBean implements FactoryBean<EventPublisher>, I
 
         @Override
         public Object postProcessAfterInitialization(final Object bean, final String beanName) {
-            if (isHandler(bean)) {
+            long start = startupProfiler.start();
+            boolean handler = isHandler(bean);
+            startupProfiler.stop(start, beanName, bean, StartupProfiler.Phase.DETECTION);
+            if (handler) {
                 // potentially not detected as a listener by getBeanNamesForType retrieval
                 Boolean flag = this.singletonNames.get(beanName);
                 if (Boolean.TRUE.equals(flag)) {
                     // singleton bean (top-level or inner): register on the fly
+                    start = startupProfiler.start();
                     eventPublisher.register(bean);
+                    startupProfiler.stop(start, beanName, bean, StartupProfiler.Phase.REGISTRATION);
                 } else if (flag == null) {
                     if (log.isWarnEnabled() && !beanFactory.containsBean(beanName)) {
                         // inner bean with other scope - can't reliably process events
@@ -351,6 +523,7 @@ public class EventPublisherFactoryBean implements FactoryBean<EventPublisher>, I
          */
         @Override
         public Object postProcessBeforeInitialization(final Object bean, final String beanName) {
+            long start = startupProfiler.start();
             AccessControlContext acc = null;
 
             if (System.getSecurityManager() != null && bean instanceof IEventPublisherAware) {
@@ -369,6 +542,7 @@ public class EventPublisherFactoryBean implements FactoryBean<EventPublisher>, I
             } else {
                 invokeAwareInterfaces(bean);
             }
+            startupProfiler.stop(start, beanName, bean, StartupProfiler.Phase.AWARE_INJECTION);
 
             return bean;
         }
@@ -0,0 +1,254 @@
+package org.cfr.commons.event.spring;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nonnull;
+
+import org.cfr.commons.event.api.ICorrelatedEvent;
+import org.cfr.commons.util.Assert;
+import org.springframework.beans.factory.DisposableBean;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.api.EventPublisher;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Request/reply conversation over an {@link EventPublisher}.
+ * <p>{@link #request(ICorrelatedEvent, Class, long, TimeUnit)} publishes the request event and returns
+ * immediately a future completed when a reply event with the same correlation identifier is published.
+ * No thread is blocked while the reply is pending: the template listens to the {@link ICorrelatedEvent}
+ * events and a single shared thread expires the requests which time out.</p>
+ * <p>The template registers itself as listener on the given publisher.</p>
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+public class EventRequestReplyTemplate implements DisposableBean {
+
+    /**
+     * the publisher.
+     */
+    private final EventPublisher eventPublisher;
+
+    /**
+     * expires the timed out requests.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * indicate whether the scheduler is created by this template.
+     */
+    private final boolean ownScheduler;
+
+    /**
+     * pending requests by correlation identifier.
+     */
+    private final ConcurrentMap<String, PendingReply<?>> pendingReplies = new ConcurrentHashMap<String, PendingReply<?>>();
+
+    /**
+     * Create a new template with its own timeout thread.
+     * @param eventPublisher the publisher (can not be <code>null</code>).
+     */
+    public EventRequestReplyTemplate(@Nonnull final EventPublisher eventPublisher) {
+        this(eventPublisher, createScheduler(), true);
+    }
+
+    /**
+     * Create a new template.
+     * <p>The timeout task of a request is cancelled when the request is answered or cancelled. The scheduler should
+     * remove the cancelled tasks from its queue, see {@link ScheduledThreadPoolExecutor#setRemoveOnCancelPolicy(boolean)},
+     * otherwise each answered request is retained until its timeout elapses.</p>
+     * @param eventPublisher the publisher (can not be <code>null</code>).
+     * @param scheduler the scheduler expiring the timed out requests (can not be <code>null</code>).
+     */
+    public EventRequestReplyTemplate(@Nonnull final EventPublisher eventPublisher,
+            @Nonnull final ScheduledExecutorService scheduler) {
+        this(eventPublisher, scheduler, false);
+    }
+
+    private EventRequestReplyTemplate(final EventPublisher eventPublisher, final ScheduledExecutorService scheduler,
+            final boolean ownScheduler) {
+        this.eventPublisher = Assert.notNull(eventPublisher);
+        this.scheduler = Assert.notNull(scheduler);
+        this.ownScheduler = ownScheduler;
+        this.eventPublisher.register(this);
+    }
+
+    /**
+     * Create the timeout thread of the template, removing the cancelled timeout tasks from its queue.
+     * @return Returns new instance of scheduler.
+     */
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(runnable, "event-request-timeout");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Publishes the <code>request</code> and returns the future reply.
+     * <p>The future fails with a {@link TimeoutException} if no reply is published before the timeout.
+     * Cancelling the future discards the pending request.</p>
+     * @param request the request event (can not be <code>null</code>).
+     * @param replyType the type of expected reply event.
+     * @param timeout the maximum time to wait for the reply.
+     * @param unit the time unit of <code>timeout</code>.
+     * @return Returns the future reply.
+     * @throws IllegalStateException if a request with the same correlation identifier is pending.
+     */
+    @Nonnull
+    public <R extends ICorrelatedEvent> ListenableFuture<R> request(@Nonnull final ICorrelatedEvent request,
+            @Nonnull final Class<R> replyType, final long timeout, @Nonnull final TimeUnit unit) {
+        Assert.notNull(request, "request is required");
+        Assert.notNull(replyType, "replyType is required");
+        final String correlationId = Assert.notNull(request.getCorrelationId(), "correlation id is required");
+        final PendingReply<R> reply = new PendingReply<R>(correlationId, request, replyType);
+        Assert.state(pendingReplies.putIfAbsent(correlationId, reply) == null, "a request with correlation id '"
+                + correlationId + "' is pending");
+        reply.timeoutTask = scheduler.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                if (pendingReplies.remove(correlationId, reply)) {
+                    reply.setException(new TimeoutException("no reply received for request '" + correlationId
+                            + "' within " + timeout + " " + unit));
+                }
+            }
+        }, timeout, unit);
+        try {
+            eventPublisher.publish(request);
+        } catch (RuntimeException ex) {
+            pendingReplies.remove(correlationId, reply);
+            reply.setException(ex);
+        }
+        return reply;
+    }
+
+    /**
+     * @return Returns the number of pending requests.
+     */
+    public int getPendingCount() {
+        return pendingReplies.size();
+    }
+
+    /**
+     * Completes the pending request correlated with the given <code>event</code>, if any.
+     * @param event a correlated event.
+     */
+    @EventListener
+    public void onCorrelatedEvent(final ICorrelatedEvent event) {
+        PendingReply<?> reply = pendingReplies.get(event.getCorrelationId());
+        if (reply != null && reply.accept(event)) {
+            pendingReplies.remove(event.getCorrelationId(), reply);
+        }
+    }
+
+    /**
+     * Unregisters the template, cancels the pending requests and stops the timeout thread if owned.
+     */
+    @Override
+    public void destroy() {
+        eventPublisher.unregister(this);
+        for (PendingReply<?> reply : pendingReplies.values()) {
+            reply.cancel(false);
+        }
+        if (ownScheduler) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Future of a reply.
+     * @param <R> the type of reply.
+     */
+    private final class PendingReply<R> extends AbstractFuture<R> {
+
+        /**
+         * correlation identifier of the request.
+         */
+        private final String correlationId;
+
+        /**
+         * request event, not accepted as its own reply.
+         */
+        private final Object request;
+
+        /**
+         * type of expected reply event.
+         */
+        private final Class<R> replyType;
+
+        /**
+         * task expiring the request, cancelled once the request completes.
+         */
+        private volatile ScheduledFuture<?> timeoutTask;
+
+        /**
+         * Create a new pending reply.
+         */
+        PendingReply(final String correlationId, final Object request, final Class<R> replyType) {
+            this.correlationId = correlationId;
+            this.request = request;
+            this.replyType = replyType;
+        }
+
+        /**
+         * Completes the future with the given event if it is the expected reply.
+         * @return Returns <code>true</code> whether the event is the reply.
+         */
+        boolean accept(final Object event) {
+            if (event == request || !replyType.isInstance(event)) {
+                return false;
+            }
+            cancelTimeout();
+            return set(replyType.cast(event));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected boolean setException(final Throwable throwable) {
+            cancelTimeout();
+            return super.setException(throwable);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            if (super.cancel(mayInterruptIfRunning)) {
+                pendingReplies.remove(correlationId, this);
+                cancelTimeout();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Cancels the timeout task, which is removed from the queue of the template scheduler.
+         */
+        private void cancelTimeout() {
+            ScheduledFuture<?> task = timeoutTask;
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+    }
+}
@@ -3,8 +3,13 @@ package org.cfr.commons.event.spring;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.List;
+import java.util.Set;
 
+import javax.annotation.Nullable;
+
+import org.cfr.commons.event.api.IListenerFailureHandler;
 import org.cfr.commons.event.api.ISupportedListenerHandler;
+import org.cfr.commons.event.api.ListenerFailure;
 import org.cfr.commons.util.Assert;
 
 import com.atlassian.event.api.EventListener;
@@ -21,9 +26,14 @@ import com.google.common.collect.Lists;
  */
 public class OverrideListenerHandlerConfiguration implements ListenerHandlersConfiguration {
 
+    /**
+     * handler of listener exceptions, <code>null</code> to let the dispatcher log them.
+     */
+    private IListenerFailureHandler failureHandler;
+
     @Override
     public List<ListenerHandler> getListenerHandlers() {
-        return Lists.<ListenerHandler> newArrayList(new DecoratorAnnotatedMethodsListenerHandler());
+        return Lists.<ListenerHandler> newArrayList(createListenerHandler());
     }
 
     /**
@@ -31,7 +41,32 @@ public class OverrideListenerHandlerConfiguration implements ListenerHandlersCon
      * @return
      */
     public List<ISupportedListenerHandler> getSupportedListenerHandler() {
-        return Lists.<ISupportedListenerHandler> newArrayList(new DecoratorAnnotatedMethodsListenerHandler());
+        return Lists.<ISupportedListenerHandler> newArrayList(createListenerHandler());
+    }
+
+    /**
+     * Gets the handler of listener exceptions.
+     * @return Returns the handler of listener exceptions or <code>null</code>.
+     */
+    @Nullable
+    public IListenerFailureHandler getFailureHandler() {
+        return failureHandler;
+    }
+
+    /**
+     * Sets the handler of listener exceptions.
+     * <p>If <code>null</code> (the default), the exceptions are logged by the dispatcher on the dispatching thread.</p>
+     * @param failureHandler handler of listener exceptions.
+     */
+    public void setFailureHandler(@Nullable final IListenerFailureHandler failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * @return Returns a new listener handler reporting the listener exceptions to the failure handler.
+     */
+    private DecoratorAnnotatedMethodsListenerHandler createListenerHandler() {
+        return new DecoratorAnnotatedMethodsListenerHandler(new AnnotatedMethodsListenerHandler(), failureHandler);
     }
 
     /**
@@ -51,6 +86,11 @@ public class OverrideListenerHandlerConfiguration implements ListenerHandlersCon
          */
         private final Class<? extends Annotation> annotationClass;
 
+        /**
+         * handler of listener exceptions, <code>null</code> to let the dispatcher log them.
+         */
+        private final IListenerFailureHandler failureHandler;
+
         /**
          * 
          */
@@ -63,13 +103,32 @@ public class OverrideListenerHandlerConfiguration implements ListenerHandlersCon
          * @param listenerHandler
          */
         public DecoratorAnnotatedMethodsListenerHandler(final AnnotatedMethodsListenerHandler listenerHandler) {
+            this(listenerHandler, null);
+        }
+
+        /**
+         * 
+         * @param listenerHandler the decorated listener handler.
+         * @param failureHandler handler of listener exceptions, can be <code>null</code>.
+         */
+        public DecoratorAnnotatedMethodsListenerHandler(final AnnotatedMethodsListenerHandler listenerHandler,
+                @Nullable final IListenerFailureHandler failureHandler) {
             this.listenerHandler = Assert.notNull(listenerHandler);
             this.annotationClass = EventListener.class;
+            this.failureHandler = failureHandler;
         }
 
         @Override
         public List<? extends ListenerInvoker> getInvokers(final Object listener) {
-            return listenerHandler.getInvokers(listener);
+            List<? extends ListenerInvoker> invokers = listenerHandler.getInvokers(listener);
+            if (failureHandler == null) {
+                return invokers;
+            }
+            List<ListenerInvoker> decoratedInvokers = Lists.newArrayListWithCapacity(invokers.size());
+            for (ListenerInvoker invoker : invokers) {
+                decoratedInvokers.add(new FailureHandlingListenerInvoker(listener, invoker, failureHandler));
+            }
+            return decoratedInvokers;
         }
 
         @Override
@@ -119,4 +178,61 @@ public class OverrideListenerHandlerConfiguration implements ListenerHandlersCon
             return method.getParameterTypes().length == 1;
         }
     }
+
+    /**
+     * {@link ListenerInvoker} handing off the exceptions thrown by the listener
+     * to a {@link IListenerFailureHandler} instead of letting the dispatcher log them.
+     * 
+     * @author devacfr
+     *
+     */
+    static class FailureHandlingListenerInvoker implements ListenerInvoker {
+
+        /**
+         * listener owning the invoked method.
+         */
+        private final Object listener;
+
+        /**
+         * invoker of the listener method.
+         */
+        private final ListenerInvoker delegate;
+
+        /**
+         * handler of listener exceptions.
+         */
+        private final IListenerFailureHandler failureHandler;
+
+        /**
+         * 
+         * @param listener the listener owning the invoked method.
+         * @param delegate the invoker of the listener method.
+         * @param failureHandler the handler of listener exceptions.
+         */
+        FailureHandlingListenerInvoker(final Object listener, final ListenerInvoker delegate,
+                final IListenerFailureHandler failureHandler) {
+            this.listener = Assert.notNull(listener);
+            this.delegate = Assert.notNull(delegate);
+            this.failureHandler = Assert.notNull(failureHandler);
+        }
+
+        @Override
+        public Set<Class<?>> getSupportedEventTypes() {
+            return delegate.getSupportedEventTypes();
+        }
+
+        @Override
+        public void invoke(final Object event) {
+            try {
+                delegate.invoke(event);
+            } catch (RuntimeException ex) {
+                failureHandler.handleFailure(new ListenerFailure(listener, delegate, event, ex));
+            }
+        }
+
+        @Override
+        public boolean supportAsynchronousEvents() {
+            return delegate.supportAsynchronousEvents();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package org.cfr.commons.event.spring;
+
+import javax.annotation.Nonnull;
+
+import org.cfr.commons.event.api.ReplayOnRegister;
+import org.cfr.commons.util.Assert;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.event.config.ListenerHandlersConfiguration;
+import com.atlassian.event.spi.EventDispatcher;
+import com.atlassian.event.spi.ListenerHandler;
+import com.atlassian.event.spi.ListenerInvoker;
+
+/**
+ * {@link EventPublisher} retaining the published events in an {@link EventHistory} and replaying them
+ * to the listeners annotated with {@link ReplayOnRegister} when they are registered.
+ * <p>The replayed events are dispatched with the {@link EventDispatcher} of the publisher, so the synchronous or
+ * asynchronous dispatching is the same as for published events. An event published while a listener is
+ * registered can be received twice by this listener.</p>
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+public class ReplayingEventPublisher implements EventPublisher {
+
+    /**
+     * publisher dispatching the events.
+     */
+    private final EventPublisher delegate;
+
+    /**
+     * history of events.
+     */
+    private final EventHistory history;
+
+    /**
+     * dispatcher used to replay the events.
+     */
+    private final EventDispatcher eventDispatcher;
+
+    /**
+     * listener handlers used to find the listener invokers.
+     */
+    private final ListenerHandlersConfiguration listenerHandlers;
+
+    /**
+     * Create a new replaying publisher.
+     * @param delegate the publisher dispatching the events.
+     * @param history the history of events.
+     * @param eventDispatcher the dispatcher used to replay the events.
+     * @param listenerHandlers the listener handlers used to find the listener invokers.
+     */
+    public ReplayingEventPublisher(@Nonnull final EventPublisher delegate, @Nonnull final EventHistory history,
+            @Nonnull final EventDispatcher eventDispatcher, @Nonnull final ListenerHandlersConfiguration listenerHandlers) {
+        this.delegate = Assert.notNull(delegate);
+        this.history = Assert.notNull(history);
+        this.eventDispatcher = Assert.notNull(eventDispatcher);
+        this.listenerHandlers = Assert.notNull(listenerHandlers);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void publish(final Object event) {
+        if (event != null) {
+            history.add(event);
+        }
+        delegate.publish(event);
+    }
+
+    /**
+     * Registers the listener and replays the retained events if the listener is annotated with
+     * {@link ReplayOnRegister}.
+     * @param listener the listener to register.
+     */
+    @Override
+    public void register(final Object listener) {
+        delegate.register(listener);
+        if (listener != null && listener.getClass().isAnnotationPresent(ReplayOnRegister.class)) {
+            replay(listener);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void unregister(final Object listener) {
+        delegate.unregister(listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void unregisterAll() {
+        delegate.unregisterAll();
+    }
+
+    /**
+     * @return Returns the history of events.
+     */
+    @Nonnull
+    public EventHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Dispatches the retained events to the given <code>listener</code>.
+     * @param listener the listener.
+     */
+    protected void replay(final Object listener) {
+        for (ListenerHandler listenerHandler : listenerHandlers.getListenerHandlers()) {
+            for (ListenerInvoker invoker : listenerHandler.getInvokers(listener)) {
+                for (Object event : history.getEvents(invoker.getSupportedEventTypes())) {
+                    eventDispatcher.dispatch(invoker, event);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package org.cfr.commons.event.spring;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+/**
+ * Records the time spent by the event post-processors of {@link EventPublisherFactoryBean} for each bean
+ * and emits, at the end of the context refresh, a report of the most expensive beans and classes.
+ * <p>A disabled profiler records nothing and costs a field read for each bean.</p>
+ * <p>Only the refresh of the profiled context emits the report: the refresh events of its child contexts, which are
+ * propagated to the listeners of the parent, are ignored, and so is a refresh having recorded nothing.</p>
+ *
+ * @author devacfr
+ * @since 1.1
+ * @see EventPublisherFactoryBean#setStartupProfiling(boolean)
+ */
+public class StartupProfiler implements ApplicationListener<ContextRefreshedEvent>, ApplicationContextAware {
+
+    /**
+     * Steps of the event post-processing of a bean.
+     */
+    public enum Phase {
+        /**
+         * detection of listener methods.
+         */
+        DETECTION,
+        /**
+         * registration of listener in the event publisher.
+         */
+        REGISTRATION,
+        /**
+         * injection of event publisher in {@link org.cfr.commons.event.api.IEventPublisherAware} beans.
+         */
+        AWARE_INJECTION
+    }
+
+    /**
+     * Orders the timings by decreasing total time.
+     */
+    private static final Comparator<Timing> TOTAL_TIME_COMPARATOR = new Comparator<Timing>() {
+
+        @Override
+        public int compare(final Timing o1, final Timing o2) {
+            long total1 = o1.getTotal();
+            long total2 = o2.getTotal();
+            return total1 > total2 ? -1 : (total1 == total2 ? 0 : 1);
+        }
+    };
+
+    /**
+     * log instance.
+     */
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * timings by bean name.
+     */
+    private final Map<String, Timing> beanTimings = new HashMap<String, Timing>();
+
+    /**
+     * indicate whether the profiler records.
+     */
+    private final boolean enabled;
+
+    /**
+     * number of beans and classes in the report.
+     */
+    private final int reportSize;
+
+    /**
+     * profiled context, <code>null</code> if unknown.
+     */
+    private volatile ApplicationContext applicationContext;
+
+    /**
+     * Create a new profiler.
+     * @param enabled <code>true</code> whether the profiler records the timings.
+     * @param reportSize the number of beans and classes in the report.
+     */
+    public StartupProfiler(final boolean enabled, final int reportSize) {
+        this.enabled = enabled;
+        this.reportSize = reportSize;
+    }
+
+    /**
+     * Sets the profiled context, whose refresh emits the report.
+     * <p>If not set, the report is emitted at the end of the first refresh having recorded timings.</p>
+     * @param applicationContext the profiled context.
+     */
+    @Override
+    public void setApplicationContext(final ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * @return Returns <code>true</code> whether the profiler records the timings.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts a measure.
+     * @return Returns the start time in nanoseconds, or <code>0</code> if the profiler is disabled.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Stops a measure and records the elapsed time since <code>start</code>.
+     * @param start the value returned by {@link #start()}.
+     * @param beanName the name of the processed bean.
+     * @param bean the processed bean.
+     * @param phase the step of post-processing.
+     */
+    public void stop(final long start, final String beanName, final Object bean, final Phase phase) {
+        if (!enabled) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        synchronized (beanTimings) {
+            Timing timing = beanTimings.get(beanName);
+            if (timing == null) {
+                timing = new Timing(beanName, bean.getClass().getName());
+                beanTimings.put(beanName, timing);
+            }
+            timing.add(phase, elapsed);
+        }
+    }
+
+    /**
+     * Emits the report at the end of the context refresh, then the recorded timings are discarded.
+     * @param event the refresh event.
+     */
+    @Override
+    public void onApplicationEvent(final ContextRefreshedEvent event) {
+        ApplicationContext context = applicationContext;
+        if (context != null && context != event.getApplicationContext()) {
+            // refresh of a child context
+            return;
+        }
+        synchronized (beanTimings) {
+            if (beanTimings.isEmpty()) {
+                return;
+            }
+        }
+        if (enabled && log.isInfoEnabled()) {
+            log.info(createReport());
+        }
+        synchronized (beanTimings) {
+            beanTimings.clear();
+        }
+    }
+
+    /**
+     * Creates the report of recorded timings.
+     * @return Returns the report.
+     */
+    @Nonnull
+    public String createReport() {
+        List<Timing> beans;
+        Map<String, Timing> classes = new HashMap<String, Timing>();
+        Timing total = new Timing("total", "");
+        synchronized (beanTimings) {
+            beans = new ArrayList<Timing>(beanTimings.values());
+        }
+        for (Timing timing : beans) {
+            Timing classTiming = classes.get(timing.className);
+            if (classTiming == null) {
+                classTiming = new Timing(timing.className, timing.className);
+                classes.put(timing.className, classTiming);
+            }
+            classTiming.add(timing);
+            total.add(timing);
+        }
+        StringBuilder report = new StringBuilder("Event post-processing startup report: ").append(beans.size())
+                .append(" beans, ");
+        total.appendTo(report);
+        report.append("\nMost expensive beans:");
+        appendTop(report, beans);
+        report.append("\nMost expensive classes:");
+        appendTop(report, classes.values());
+        return report.toString();
+    }
+
+    /**
+     * Appends the most expensive timings to the report, by decreasing total time.
+     */
+    private void appendTop(final StringBuilder report, final Collection<Timing> timings) {
+        List<Timing> sorted = new ArrayList<Timing>(timings);
+        Collections.sort(sorted, TOTAL_TIME_COMPARATOR);
+        for (Timing timing : sorted.subList(0, Math.min(reportSize, sorted.size()))) {
+            report.append("\n  ").append(timing.name);
+            if (!timing.name.equals(timing.className)) {
+                report.append(" [").append(timing.className).append(']');
+            }
+            report.append(": ");
+            timing.appendTo(report);
+        }
+    }
+
+    /**
+     * @return Returns the given duration formatted in milliseconds.
+     */
+    private static String format(final long nanos) {
+        return String.format(Locale.ENGLISH, "%.3f ms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * Elapsed times by phase.
+     */
+    private static final class Timing {
+
+        /**
+         * bean or class name.
+         */
+        private final String name;
+
+        /**
+         * class name of the bean.
+         */
+        private final String className;
+
+        /**
+         * elapsed nanoseconds by phase ordinal.
+         */
+        private final long[] elapsed = new long[Phase.values().length];
+
+        /**
+         * Create a new empty timing.
+         */
+        Timing(final String name, final String className) {
+            this.name = name;
+            this.className = className;
+        }
+
+        /**
+         * Adds the elapsed time of the given phase.
+         */
+        void add(final Phase phase, final long nanos) {
+            elapsed[phase.ordinal()] += nanos;
+        }
+
+        /**
+         * Adds the elapsed times of the given timing, phase by phase.
+         */
+        void add(final Timing timing) {
+            for (int i = 0; i < elapsed.length; i++) {
+                elapsed[i] += timing.elapsed[i];
+            }
+        }
+
+        /**
+         * @return Returns the elapsed time of all the phases.
+         */
+        long getTotal() {
+            long total = 0;
+            for (long nanos : elapsed) {
+                total += nanos;
+            }
+            return total;
+        }
+
+        /**
+         * Appends the total and the elapsed time by phase.
+         */
+        void appendTo(final StringBuilder builder) {
+            builder.append(format(getTotal())).append(" (");
+            for (Phase phase : Phase.values()) {
+                if (phase.ordinal() > 0) {
+                    builder.append(", ");
+                }
+                builder.append(phase.name().toLowerCase(Locale.ENGLISH)).append('=')
+                        .append(format(elapsed[phase.ordinal()]));
+            }
+            builder.append(')');
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.cfr.commons.event.spring;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cfr.commons.event.TestEvent;
+import org.cfr.commons.event.api.Idempotent;
+import org.cfr.commons.event.api.ListenerFailure;
+import org.cfr.commons.testing.EasyMockTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.atlassian.event.spi.ListenerInvoker;
+
+public class DeadLetterFailureHandlerTest extends EasyMockTestCase {
+
+    private DeadLetterFailureHandler handler;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        handler = new DeadLetterFailureHandler();
+        handler.setRetryBackoff(1);
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        handler.destroy();
+        super.tearDown();
+    }
+
+    @Test
+    public void identicalFailuresAreThrottled() throws Exception {
+        PostProcessorListenerThatThrowsException listener = new PostProcessorListenerThatThrowsException();
+        FailingInvoker invoker = new FailingInvoker(Integer.MAX_VALUE);
+        for (int i = 0; i < 10; i++) {
+            handler.handleFailure(new ListenerFailure(listener, invoker, new TestEvent(this), new RuntimeException(
+                    "error message")));
+        }
+        waitForDeadLetters(1);
+        Thread.sleep(50);
+        assertEquals(1, handler.getDeadLetters().size());
+        assertEquals(0, invoker.count.get());
+    }
+
+    @Test
+    public void failuresDifferingByMessageAreThrottled() throws Exception {
+        PostProcessorListenerThatThrowsException listener = new PostProcessorListenerThatThrowsException();
+        FailingInvoker invoker = new FailingInvoker(Integer.MAX_VALUE);
+        for (int i = 0; i < 10; i++) {
+            handler.handleFailure(new ListenerFailure(listener, invoker, new TestEvent(this), new RuntimeException(
+                    "error on event " + i)));
+        }
+        waitForDeadLetters(1);
+        Thread.sleep(50);
+        assertEquals(1, handler.getDeadLetters().size());
+    }
+
+    @Test
+    public void idempotentListenerIsRetried() throws Exception {
+        IdempotentListener listener = new IdempotentListener();
+        FailingInvoker invoker = new FailingInvoker(2);
+        handler.handleFailure(new ListenerFailure(listener, invoker, new TestEvent(this), new RuntimeException()));
+        long timeout = System.currentTimeMillis() + 5000;
+        while (invoker.count.get() < 3 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, invoker.count.get());
+        assertTrue(handler.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    public void exhaustedRetriesAreDeadLettered() throws Exception {
+        handler.setMaxRetries(2);
+        IdempotentListener listener = new IdempotentListener();
+        FailingInvoker invoker = new FailingInvoker(Integer.MAX_VALUE);
+        handler.handleFailure(new ListenerFailure(listener, invoker, new TestEvent(this), new RuntimeException()));
+        waitForDeadLetters(1);
+        assertEquals(2, invoker.count.get());
+        assertEquals(3, handler.drainDeadLetters().get(0).getAttempt());
+        assertTrue(handler.getDeadLetters().isEmpty());
+    }
+
+    private void waitForDeadLetters(final int expected) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (handler.getDeadLetters().size() < expected && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Idempotent
+    public static class IdempotentListener {
+    }
+
+    private static class FailingInvoker implements ListenerInvoker {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final int failures;
+
+        FailingInvoker(final int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public Set<Class<?>> getSupportedEventTypes() {
+            return Collections.<Class<?>> singleton(TestEvent.class);
+        }
+
+        @Override
+        public void invoke(final Object event) {
+            if (count.incrementAndGet() <= failures) {
+                throw new RuntimeException("error message");
+            }
+        }
+
+        @Override
+        public boolean supportAsynchronousEvents() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.cfr.commons.event.spring;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.cfr.commons.event.TestEvent;
+import org.cfr.commons.event.api.IEventSizeEstimator;
+import org.cfr.commons.testing.EasyMockTestCase;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class EventHistoryTest extends EasyMockTestCase {
+
+    private static final IEventSizeEstimator UNIT_SIZE = new IEventSizeEstimator() {
+
+        @Override
+        public long estimateSize(final Object event) {
+            return 1;
+        }
+    };
+
+    @Test
+    public void retainsEventsByTypeUpToCount() {
+        EventHistory history = new EventHistory(2, 100, UNIT_SIZE);
+        history.add(new TestEvent("1"));
+        history.add("a");
+        history.add(new TestEvent("2"));
+        history.add(new TestEvent("3"));
+
+        assertEquals(3, history.size());
+        List<Object> events = history.getEvents(ImmutableList.<Class<?>> of(TestEvent.class));
+        assertEquals(ImmutableList.<Object> of(new TestEvent("2"), new TestEvent("3")), events);
+        assertEquals(ImmutableList.<Object> of("a", new TestEvent("2"), new TestEvent("3")),
+            history.getEvents(Collections.<Class<?>> emptySet()));
+    }
+
+    @Test
+    public void evictsOldestEventsWhenBytesExceeded() {
+        EventHistory history = new EventHistory(10, 3, UNIT_SIZE);
+        history.add("a");
+        history.add(new TestEvent("1"));
+        history.add("b");
+        history.add(new TestEvent("2"));
+
+        assertEquals(3, history.getTotalBytes());
+        assertEquals(ImmutableList.<Object> of(new TestEvent("1"), "b", new TestEvent("2")),
+            history.getEvents(ImmutableList.<Class<?>> of(Object.class)));
+    }
+}
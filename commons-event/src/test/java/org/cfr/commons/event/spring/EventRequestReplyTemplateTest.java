@@ -0,0 +1,253 @@
+package org.cfr.commons.event.spring;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cfr.commons.event.api.ICorrelatedEvent;
+import org.cfr.commons.testing.EasyMockTestCase;
+import org.junit.Test;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.api.EventPublisher;
+
+public class EventRequestReplyTemplateTest extends EasyMockTestCase {
+
+    @Test
+    public void replyCompletesRequest() throws Exception {
+        ReplyingPublisher publisher = new ReplyingPublisher(true);
+        EventRequestReplyTemplate template = new EventRequestReplyTemplate(publisher);
+        try {
+            Future<Reply> future = template.request(new Request("1"), Reply.class, 5, TimeUnit.SECONDS);
+            assertEquals("1", future.get(1, TimeUnit.SECONDS).getCorrelationId());
+            assertEquals(0, template.getPendingCount());
+        } finally {
+            template.destroy();
+        }
+    }
+
+    @Test
+    public void requestTimesOut() throws Exception {
+        ReplyingPublisher publisher = new ReplyingPublisher(false);
+        EventRequestReplyTemplate template = new EventRequestReplyTemplate(publisher);
+        try {
+            Future<Reply> future = template.request(new Request("1"), Reply.class, 10, TimeUnit.MILLISECONDS);
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("timeout expected");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof TimeoutException);
+            }
+            assertEquals(0, template.getPendingCount());
+        } finally {
+            template.destroy();
+        }
+    }
+
+    @Test
+    public void cancelDiscardsPendingRequest() throws Exception {
+        ReplyingPublisher publisher = new ReplyingPublisher(false);
+        EventRequestReplyTemplate template = new EventRequestReplyTemplate(publisher);
+        try {
+            Future<Reply> future = template.request(new Request("1"), Reply.class, 5, TimeUnit.SECONDS);
+            assertEquals(1, template.getPendingCount());
+            assertTrue(future.cancel(false));
+            assertEquals(0, template.getPendingCount());
+        } finally {
+            template.destroy();
+        }
+    }
+
+    @Test
+    public void replyListenerCompletesRequestThroughPublisher() throws Exception {
+        EventPublisher publisher = createEventPublisher();
+        publisher.register(new Replier(publisher));
+        EventRequestReplyTemplate template = new EventRequestReplyTemplate(publisher);
+        try {
+            Future<Reply> future = template.request(new Request("1"), Reply.class, 5, TimeUnit.SECONDS);
+            assertEquals("1", future.get(1, TimeUnit.SECONDS).getCorrelationId());
+            assertEquals(0, template.getPendingCount());
+        } finally {
+            template.destroy();
+        }
+    }
+
+    @Test
+    public void repliesAreCorrelatedThroughPublisher() throws Exception {
+        EventPublisher publisher = createEventPublisher();
+        EventRequestReplyTemplate template = new EventRequestReplyTemplate(publisher);
+        try {
+            Future<Reply> first = template.request(new Request("1"), Reply.class, 5, TimeUnit.SECONDS);
+            Future<Reply> second = template.request(new Request("2"), Reply.class, 5, TimeUnit.SECONDS);
+            publisher.publish(new Reply("3"));
+            publisher.publish(new Reply("2"));
+            assertFalse(first.isDone());
+            assertEquals("2", second.get(1, TimeUnit.SECONDS).getCorrelationId());
+            assertEquals(1, template.getPendingCount());
+            publisher.publish(new Reply("1"));
+            assertEquals("1", first.get(1, TimeUnit.SECONDS).getCorrelationId());
+            assertEquals(0, template.getPendingCount());
+        } finally {
+            template.destroy();
+        }
+    }
+
+    @Test
+    public void requestTimesOutThroughPublisher() throws Exception {
+        EventPublisher publisher = createEventPublisher();
+        EventRequestReplyTemplate template = new EventRequestReplyTemplate(publisher);
+        try {
+            Future<Reply> future = template.request(new Request("1"), Reply.class, 10, TimeUnit.MILLISECONDS);
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("timeout expected");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof TimeoutException);
+            }
+            assertEquals(0, template.getPendingCount());
+            // a late reply is ignored
+            publisher.publish(new Reply("1"));
+            assertEquals(0, template.getPendingCount());
+        } finally {
+            template.destroy();
+        }
+    }
+
+    @Test
+    public void destroyUnregistersTemplate() throws Exception {
+        EventPublisher publisher = createEventPublisher();
+        CountingTemplate template = new CountingTemplate(publisher);
+        Future<Reply> future = template.request(new Request("1"), Reply.class, 5, TimeUnit.SECONDS);
+        assertEquals(1, template.received.get());
+        template.destroy();
+        assertTrue(future.isCancelled());
+        publisher.publish(new Reply("1"));
+        assertEquals(1, template.received.get());
+    }
+
+    @Test
+    public void answeredAndCancelledRequestsLeaveNoTimeoutTask() throws Exception {
+        EventPublisher publisher = createEventPublisher();
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+        scheduler.setRemoveOnCancelPolicy(true);
+        EventRequestReplyTemplate template = new EventRequestReplyTemplate(publisher, scheduler);
+        try {
+            Future<Reply> answered = template.request(new Request("1"), Reply.class, 1, TimeUnit.HOURS);
+            Future<Reply> cancelled = template.request(new Request("2"), Reply.class, 1, TimeUnit.HOURS);
+            assertEquals(2, scheduler.getQueue().size());
+            publisher.publish(new Reply("1"));
+            assertTrue(answered.isDone());
+            assertEquals(1, scheduler.getQueue().size());
+            cancelled.cancel(false);
+            assertTrue(scheduler.getQueue().isEmpty());
+        } finally {
+            template.destroy();
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static EventPublisher createEventPublisher() throws Exception {
+        EventPublisherFactoryBean factoryBean = new EventPublisherFactoryBean();
+        factoryBean.afterPropertiesSet();
+        return factoryBean.getObject();
+    }
+
+    private static class Request implements ICorrelatedEvent {
+
+        private final String correlationId;
+
+        Request(final String correlationId) {
+            this.correlationId = correlationId;
+        }
+
+        @Override
+        public String getCorrelationId() {
+            return correlationId;
+        }
+    }
+
+    private static class Reply extends Request {
+
+        Reply(final String correlationId) {
+            super(correlationId);
+        }
+    }
+
+    /**
+     * Listener answering the requests.
+     */
+    public static class Replier {
+
+        private final EventPublisher publisher;
+
+        Replier(final EventPublisher publisher) {
+            this.publisher = publisher;
+        }
+
+        @EventListener
+        public void onRequest(final Request request) {
+            if (!(request instanceof Reply)) {
+                publisher.publish(new Reply(request.getCorrelationId()));
+            }
+        }
+    }
+
+    /**
+     * Template counting the correlated events it receives.
+     */
+    public static class CountingTemplate extends EventRequestReplyTemplate {
+
+        private final AtomicInteger received = new AtomicInteger();
+
+        CountingTemplate(final EventPublisher eventPublisher) {
+            super(eventPublisher);
+        }
+
+        @Override
+        @EventListener
+        public void onCorrelatedEvent(final ICorrelatedEvent event) {
+            received.incrementAndGet();
+            super.onCorrelatedEvent(event);
+        }
+    }
+
+    /**
+     * Synchronous publisher delivering the correlated events to the template and answering the requests.
+     */
+    private static class ReplyingPublisher implements EventPublisher {
+
+        private final boolean reply;
+
+        private EventRequestReplyTemplate template;
+
+        ReplyingPublisher(final boolean reply) {
+            this.reply = reply;
+        }
+
+        @Override
+        public void publish(final Object event) {
+            template.onCorrelatedEvent((ICorrelatedEvent) event);
+            if (reply && !(event instanceof Reply)) {
+                publish(new Reply(((ICorrelatedEvent) event).getCorrelationId()));
+            }
+        }
+
+        @Override
+        public void register(final Object listener) {
+            template = (EventRequestReplyTemplate) listener;
+        }
+
+        @Override
+        public void unregister(final Object listener) {
+            template = null;
+        }
+
+        @Override
+        public void unregisterAll() {
+            template = null;
+        }
+    }
+}
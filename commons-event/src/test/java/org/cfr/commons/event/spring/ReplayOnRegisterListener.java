@@ -0,0 +1,35 @@
+package org.cfr.commons.event.spring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cfr.commons.event.TestEvent;
+import org.cfr.commons.event.api.ReplayOnRegister;
+
+import com.atlassian.event.api.EventListener;
+
+@ReplayOnRegister
+public class ReplayOnRegisterListener {
+
+    private final List<TestEvent> events = new ArrayList<TestEvent>();
+
+    private final List<String> messages = new ArrayList<String>();
+
+    @EventListener
+    public void onEvent(TestEvent event) {
+        events.add(event);
+    }
+
+    @EventListener
+    public void onMessage(String message) {
+        messages.add(message);
+    }
+
+    public List<TestEvent> getEvents() {
+        return events;
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+}
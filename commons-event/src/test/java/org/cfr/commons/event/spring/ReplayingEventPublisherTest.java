@@ -0,0 +1,61 @@
+package org.cfr.commons.event.spring;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.cfr.commons.event.TestEvent;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.atlassian.event.api.EventPublisher;
+
+@ContextConfiguration(locations = { "classpath:org/cfr/commons/event/spring/beans-definitions-replay-tests.xml" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class ReplayingEventPublisherTest extends AbstractSpringContextTests {
+
+    @Autowired
+    private EventPublisher eventPublisher;
+
+    @Test
+    public void eventHistorySizeWrapsPublisher() throws Exception {
+        assertTrue(eventPublisher instanceof ReplayingEventPublisher);
+
+        EventPublisherFactoryBean factoryBean = new EventPublisherFactoryBean();
+        factoryBean.afterPropertiesSet();
+        assertFalse(factoryBean.getObject() instanceof ReplayingEventPublisher);
+    }
+
+    @Test
+    public void retainedEventsAreReplayedInPublicationOrder() {
+        TestEvent first = new TestEvent("first");
+        TestEvent second = new TestEvent("second");
+        eventPublisher.publish(first);
+        eventPublisher.publish("message");
+        eventPublisher.publish(second);
+
+        ReplayOnRegisterListener listener = applicationContext.getBean("replayListener",
+            ReplayOnRegisterListener.class);
+        // each listener method receives only the events of its type
+        assertEquals(Arrays.asList(first, second), listener.getEvents());
+        assertEquals(Collections.singletonList("message"), listener.getMessages());
+
+        TestEvent third = new TestEvent("third");
+        eventPublisher.publish(third);
+        assertEquals(Arrays.asList(first, second, third), listener.getEvents());
+    }
+
+    @Test
+    public void listenerWithoutReplayOnRegisterIsNotReplayed() {
+        eventPublisher.publish(new TestEvent(this));
+
+        PostProcessorListener listener = applicationContext.getBean("lateListener", PostProcessorListener.class);
+        assertEquals(0, listener.getCounter());
+
+        eventPublisher.publish(new TestEvent(this));
+        assertEquals(1, listener.getCounter());
+    }
+
+}
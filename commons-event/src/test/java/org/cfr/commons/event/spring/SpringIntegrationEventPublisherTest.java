@@ -43,4 +43,34 @@ public class SpringIntegrationEventPublisherTest extends AbstractSpringContextTe
         assertEquals(1, postProcessorListener.getCounter());
     }
 
+    @Test
+    public void childPublisherKeepsOwnListeners() throws Exception {
+        EventPublisherFactoryBean factoryBean = applicationContext.getBean("&EventPublisher",
+            EventPublisherFactoryBean.class);
+        EventPublisher child = factoryBean.createChildPublisher(false);
+        PostProcessorListener childListener = new PostProcessorListener();
+        child.register(childListener);
+
+        child.publish(new TestEvent(this));
+        assertEquals(1, childListener.getCounter());
+        assertEquals(0, postProcessorListener.getCounter());
+
+        eventPublisher.publish(new TestEvent(this));
+        assertEquals(1, childListener.getCounter());
+        assertEquals(1, postProcessorListener.getCounter());
+    }
+
+    @Test
+    public void childPublisherPropagatesToParent() throws Exception {
+        EventPublisherFactoryBean factoryBean = applicationContext.getBean("&EventPublisher",
+            EventPublisherFactoryBean.class);
+        EventPublisher child = factoryBean.createChildPublisher(true);
+        PostProcessorListener childListener = new PostProcessorListener();
+        child.register(childListener);
+
+        child.publish(new TestEvent(this));
+        assertEquals(1, childListener.getCounter());
+        assertEquals(1, postProcessorListener.getCounter());
+    }
+
 }
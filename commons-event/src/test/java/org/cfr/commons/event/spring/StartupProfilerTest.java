@@ -0,0 +1,117 @@
+package org.cfr.commons.event.spring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.cfr.commons.event.spring.StartupProfiler.Phase;
+import org.cfr.commons.testing.EasyMockTestCase;
+import org.junit.Test;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.StaticApplicationContext;
+
+public class StartupProfilerTest extends EasyMockTestCase {
+
+    @Test
+    public void beansAreSortedByDecreasingTime() {
+        StartupProfiler profiler = new StartupProfiler(true, 20);
+        record(profiler, "fast", "", Phase.DETECTION, 100);
+        record(profiler, "slow", "", Phase.DETECTION, 300);
+        record(profiler, "medium", "", Phase.REGISTRATION, 200);
+        List<String> beans = getSection(profiler.createReport(), "Most expensive beans:");
+        assertEquals(3, beans.size());
+        assertTrue(beans.get(0), beans.get(0).startsWith("slow [java.lang.String]: 300."));
+        assertTrue(beans.get(1), beans.get(1).startsWith("medium [java.lang.String]: 200."));
+        assertTrue(beans.get(2), beans.get(2).startsWith("fast [java.lang.String]: 100."));
+    }
+
+    @Test
+    public void reportIsTruncatedToReportSize() {
+        StartupProfiler profiler = new StartupProfiler(true, 2);
+        record(profiler, "fast", "", Phase.DETECTION, 100);
+        record(profiler, "slow", "", Phase.DETECTION, 300);
+        record(profiler, "medium", 1, Phase.DETECTION, 200);
+        String report = profiler.createReport();
+        assertTrue(report, report.startsWith("Event post-processing startup report: 3 beans, 600."));
+        List<String> beans = getSection(report, "Most expensive beans:");
+        assertEquals(2, beans.size());
+        assertTrue(beans.get(0), beans.get(0).startsWith("slow "));
+        assertTrue(beans.get(1), beans.get(1).startsWith("medium "));
+        assertEquals(2, getSection(report, "Most expensive classes:").size());
+    }
+
+    @Test
+    public void timingsAreAggregatedByClass() {
+        StartupProfiler profiler = new StartupProfiler(true, 20);
+        record(profiler, "first", "", Phase.DETECTION, 100);
+        record(profiler, "first", "", Phase.AWARE_INJECTION, 50);
+        record(profiler, "second", "", Phase.REGISTRATION, 150);
+        record(profiler, "number", 1, Phase.DETECTION, 200);
+        String report = profiler.createReport();
+        List<String> beans = getSection(report, "Most expensive beans:");
+        assertEquals(3, beans.size());
+        assertTrue(beans.get(1), beans.get(1).startsWith("first [java.lang.String]: 150."));
+        assertTrue(beans.get(1), beans.get(1).contains("detection=100."));
+        assertTrue(beans.get(1), beans.get(1).contains("aware_injection=50."));
+        List<String> classes = getSection(report, "Most expensive classes:");
+        assertEquals(2, classes.size());
+        assertTrue(classes.get(0), classes.get(0).startsWith("java.lang.String: 300."));
+        assertTrue(classes.get(1), classes.get(1).startsWith("java.lang.Integer: 200."));
+    }
+
+    @Test
+    public void disabledProfilerRecordsNothing() {
+        StartupProfiler profiler = new StartupProfiler(false, 20);
+        assertFalse(profiler.isEnabled());
+        assertEquals(0L, profiler.start());
+        record(profiler, "bean", "", Phase.DETECTION, 100);
+        String report = profiler.createReport();
+        assertTrue(report, report.startsWith("Event post-processing startup report: 0 beans, 0.000 ms"));
+        assertTrue(getSection(report, "Most expensive beans:").isEmpty());
+    }
+
+    @Test
+    public void refreshOfChildContextIsIgnored() {
+        StaticApplicationContext context = new StaticApplicationContext();
+        StaticApplicationContext child = new StaticApplicationContext(context);
+        StartupProfiler profiler = new StartupProfiler(true, 20);
+        profiler.setApplicationContext(context);
+        record(profiler, "bean", "", Phase.DETECTION, 100);
+
+        profiler.onApplicationEvent(new ContextRefreshedEvent(child));
+        assertEquals(1, getSection(profiler.createReport(), "Most expensive beans:").size());
+
+        profiler.onApplicationEvent(new ContextRefreshedEvent(context));
+        assertTrue(getSection(profiler.createReport(), "Most expensive beans:").isEmpty());
+    }
+
+    /**
+     * Records a measure of the given duration.
+     */
+    private static void record(final StartupProfiler profiler, final String beanName, final Object bean,
+        final Phase phase, final long millis) {
+        long start = profiler.start();
+        if (start != 0L) {
+            start -= TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+        profiler.stop(start, beanName, bean, phase);
+    }
+
+    /**
+     * Returns the lines of the given section of the report.
+     */
+    private static List<String> getSection(final String report, final String title) {
+        List<String> lines = new ArrayList<String>();
+        boolean inSection = false;
+        for (String line : report.split("\n")) {
+            if (line.startsWith("  ")) {
+                if (inSection) {
+                    lines.add(line.trim());
+                }
+            } else {
+                inSection = line.equals(title);
+            }
+        }
+        return lines;
+    }
+}
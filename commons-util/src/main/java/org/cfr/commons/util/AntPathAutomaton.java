@@ -0,0 +1,116 @@
+package org.cfr.commons.util;
+
+/**
+ * Package-protected helper class for {@link AntPathMatcher}. Matches paths against an Ant-style pattern containing
+ * '**' segments with an automaton over path segments, instead of the backtracking search of
+ * {@link AntPathMatcher#doMatch(String, String, boolean, java.util.Map)}.
+ *
+ * <p>The positions of the automaton are the pattern segments plus a final accepting position. A '**' position loops
+ * on any path segment and can be skipped; any other position advances on a path segment accepted by its segment
+ * matcher. The set of active positions is held in a <code>long</code>, each set being a state of the equivalent
+ * deterministic automaton: a path segment is consumed with a few bit operations and at most one test per distinct
+ * active pattern segment, so a match is linear in the number of path segments whatever the number of '**' segments.
+ *
+ * <p>The automaton only handles full matches of patterns with at least one '**' segment, for which the trailing path
+ * separator is not significant. As a guard against pathological patterns, the automaton is not built for patterns
+ * having more than {@link #MAX_SEGMENTS} segments; those are matched by the backtracking search.
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+final class AntPathAutomaton {
+
+    /** Maximum number of pattern segments, so that the positions fit in a <code>long</code>. */
+    static final int MAX_SEGMENTS = 63;
+
+    private final AntPathPattern pattern;
+
+    /** Positions of the '**' segments. */
+    private final long doubleWildcards;
+
+    /** Positions having a segment matcher. */
+    private final long segmentPositions;
+
+    private final long acceptingPosition;
+
+    /** For each position, the positions having the same segment, which are tested once per path segment. */
+    private final long[] sameSegmentPositions;
+
+    private final long initialState;
+
+    private AntPathAutomaton(AntPathPattern pattern) {
+        this.pattern = pattern;
+        long doubleWildcardPositions = 0L;
+        for (int i = 0; i < pattern.size(); i++) {
+            if (pattern.isDoubleWildcard(i)) {
+                doubleWildcardPositions |= 1L << i;
+            }
+        }
+        this.doubleWildcards = doubleWildcardPositions;
+        this.acceptingPosition = 1L << pattern.size();
+        this.segmentPositions = (acceptingPosition - 1) & ~doubleWildcardPositions;
+        this.sameSegmentPositions = new long[pattern.size()];
+        for (int i = 0; i < pattern.size(); i++) {
+            for (int j = 0; j < pattern.size(); j++) {
+                if (pattern.getToken(i).equals(pattern.getToken(j))) {
+                    sameSegmentPositions[i] |= 1L << j;
+                }
+            }
+        }
+        this.initialState = closure(1L);
+    }
+
+    /**
+     * Build the automaton of the given pattern.
+     * @param pattern the compiled pattern
+     * @return the automaton, or <code>null</code> if the pattern has no '**' segment or too many segments
+     */
+    static AntPathAutomaton compile(AntPathPattern pattern) {
+        if (pattern.size() > MAX_SEGMENTS) {
+            return null;
+        }
+        for (int i = 0; i < pattern.size(); i++) {
+            if (pattern.isDoubleWildcard(i)) {
+                return new AntPathAutomaton(pattern);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Test whether the given path segments fully match the pattern.
+     * @param pathDirs the segments of the path, whose leading separator has already been checked
+     * @return <code>true</code> if the path matches the pattern, <code>false</code> otherwise
+     */
+    boolean match(AntPathMatcher.PathSegments pathDirs) {
+        CharSequence path = pathDirs.getPath();
+        long state = initialState;
+        for (int s = 0; s < pathDirs.size() && state != 0L; s++) {
+            int start = pathDirs.getStart(s);
+            int end = pathDirs.getEnd(s);
+            long advanced = 0L;
+            long candidates = state & segmentPositions;
+            while (candidates != 0L) {
+                int position = Long.numberOfTrailingZeros(candidates);
+                long positions = candidates & sameSegmentPositions[position];
+                candidates &= ~positions;
+                if (pattern.matchToken(position, path, start, end, null)) {
+                    advanced |= positions;
+                }
+            }
+            // '**' positions stay active, matched positions advance to the next one
+            state = closure((state & doubleWildcards) | (advanced << 1));
+        }
+        return (state & acceptingPosition) != 0L;
+    }
+
+    /** Add the positions following the active '**' positions, which match zero segments. */
+    private long closure(long state) {
+        long previous;
+        do {
+            previous = state;
+            state |= (state & doubleWildcards) << 1;
+        } while (state != previous);
+        return state;
+    }
+}
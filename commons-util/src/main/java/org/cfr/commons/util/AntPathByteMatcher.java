@@ -0,0 +1,244 @@
+package org.cfr.commons.util;
+
+import java.nio.charset.Charset;
+
+/**
+ * Matches UTF-8 encoded names against a single-segment Ant-style pattern without decoding them.
+ *
+ * <p>Only the glob subset used to filter file names is supported: literal characters, '?' and '*'. For the names it
+ * accepts, {@link #match(byte[], int, int)} returns the same result as {@link AntPathMatcher#match(String, String)}
+ * called with the decoded name: the name is trimmed as by {@link String#trim()}, '?' matches exactly one character and neither '?'
+ * nor '*' match a line terminator. Names are expected to be well-formed UTF-8, ASCII being a subset of it.
+ *
+ * <p>Instances are immutable and thread-safe.
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+public final class AntPathByteMatcher {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String DOUBLE_WILDCARD = "**";
+
+    /** Program item matching any sequence of characters. */
+    private static final int ANY_SEQUENCE = -2;
+
+    /** Program item matching one character. */
+    private static final int ANY_CHAR = -1;
+
+    private final String pattern;
+
+    /** Literal bytes (0-255) and wildcard items. */
+    private final int[] program;
+
+    private final boolean matchAll;
+
+    private AntPathByteMatcher(String pattern, int[] program, boolean matchAll) {
+        this.pattern = pattern;
+        this.program = program;
+        this.matchAll = matchAll;
+    }
+
+    /**
+     * Compile the given pattern.
+     * @param pattern the Ant-style pattern.
+     * @return the compiled matcher, or <code>null</code> if the pattern is not a single segment made of literal
+     *         characters, '?' and '*'.
+     */
+    public static AntPathByteMatcher compile(String pattern) {
+        Assert.notNull(pattern, "pattern is required");
+        // patterns are trimmed by the tokenizer of AntPathMatcher
+        String token = pattern.trim();
+        if (token.length() == 0 || !isSupported(token)) {
+            return null;
+        }
+        if (DOUBLE_WILDCARD.equals(token)) {
+            return new AntPathByteMatcher(pattern, new int[0], true);
+        }
+        byte[] bytes = token.getBytes(UTF_8);
+        if (!token.equals(new String(bytes, UTF_8))) {
+            // unpaired surrogate, which has no UTF-8 form
+            return null;
+        }
+        int[] program = new int[bytes.length];
+        int length = 0;
+        for (byte b : bytes) {
+            if (b == '*') {
+                // consecutive stars are equivalent to one
+                if (length == 0 || program[length - 1] != ANY_SEQUENCE) {
+                    program[length++] = ANY_SEQUENCE;
+                }
+            } else if (b == '?') {
+                program[length++] = ANY_CHAR;
+            } else {
+                program[length++] = b & 0xFF;
+            }
+        }
+        int[] trimmed = new int[length];
+        System.arraycopy(program, 0, trimmed, 0, length);
+        return new AntPathByteMatcher(pattern, trimmed, false);
+    }
+
+    private static boolean isSupported(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '/' || c == '{' || c == '}' || isLineTerminator(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the pattern this matcher was compiled from.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Match a UTF-8 encoded name, as {@link AntPathMatcher#match(String, String)} does with the decoded name.
+     * @param bytes the bytes holding the name.
+     * @param offset the offset of the name.
+     * @param length the length in bytes of the name.
+     * @return <code>true</code> if the name matches the pattern.
+     */
+    public boolean match(byte[] bytes, int offset, int length) {
+        Assert.notNull(bytes, "bytes is required");
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length);
+        }
+        if (matchAll) {
+            return true;
+        }
+        int start = offset;
+        int end = offset + length;
+        // same trimming as String.trim(), whose trimmed characters are all ASCII
+        while (start < end && (bytes[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (bytes[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        // an empty name has no segment to match
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i = next(bytes, i, end)) {
+            if (isLineTerminator(codePointAt(bytes, i, end))) {
+                // neither the literals nor the wildcards of a supported pattern match a line terminator
+                return false;
+            }
+        }
+        return glob(bytes, start, end);
+    }
+
+    /**
+     * Match the last element of a '/' separated UTF-8 encoded path, as
+     * {@link AntPathMatcher#match(String, String)} does with <code>new File(path).getName()</code> on a platform
+     * using '/' as separator.
+     * @param bytes the bytes holding the path.
+     * @param offset the offset of the path.
+     * @param length the length in bytes of the path.
+     * @return <code>true</code> if the name matches the pattern.
+     */
+    public boolean matchFileName(byte[] bytes, int offset, int length) {
+        Assert.notNull(bytes, "bytes is required");
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length);
+        }
+        int end = offset + length;
+        while (end > offset && bytes[end - 1] == '/') {
+            end--;
+        }
+        int start = end;
+        while (start > offset && bytes[start - 1] != '/') {
+            start--;
+        }
+        return match(bytes, start, end - start);
+    }
+
+    /**
+     * Wildcard matching keeping the position of the last '*' only: as no item of the program matches a line
+     * terminator and the name holds none, '*' matches any sequence and backtracking to the last one is enough.
+     */
+    private boolean glob(byte[] bytes, int start, int end) {
+        int p = 0;
+        int s = start;
+        int starP = -1;
+        int starS = -1;
+        while (s < end) {
+            if (p < program.length) {
+                int item = program[p];
+                if (item == ANY_SEQUENCE) {
+                    starP = p++;
+                    starS = s;
+                    continue;
+                }
+                if (item == ANY_CHAR) {
+                    s = next(bytes, s, end);
+                    p++;
+                    continue;
+                }
+                if (item == (bytes[s] & 0xFF)) {
+                    s++;
+                    p++;
+                    continue;
+                }
+            }
+            if (starP < 0) {
+                return false;
+            }
+            // the last '*' takes one more character
+            starS = next(bytes, starS, end);
+            s = starS;
+            p = starP + 1;
+        }
+        while (p < program.length && program[p] == ANY_SEQUENCE) {
+            p++;
+        }
+        return p == program.length;
+    }
+
+    private static boolean isLineTerminator(int c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * @return the number of bytes of the UTF-8 sequence starting with the given byte, 1 for an invalid lead byte.
+     */
+    private static int sequenceLength(byte lead) {
+        int b = lead & 0xFF;
+        if (b < 0xC0) {
+            return 1;
+        } else if (b < 0xE0) {
+            return 2;
+        } else if (b < 0xF0) {
+            return 3;
+        } else if (b < 0xF8) {
+            return 4;
+        }
+        return 1;
+    }
+
+    /**
+     * @return the index of the character following the one at <code>index</code>.
+     */
+    private static int next(byte[] bytes, int index, int end) {
+        return Math.min(end, index + sequenceLength(bytes[index]));
+    }
+
+    private static int codePointAt(byte[] bytes, int index, int end) {
+        int b = bytes[index] & 0xFF;
+        int length = sequenceLength(bytes[index]);
+        if (length == 1 || index + length > end) {
+            return b;
+        }
+        int c = b & (0xFF >> (length + 1));
+        for (int i = 1; i < length; i++) {
+            c = (c << 6) | (bytes[index + i] & 0x3F);
+        }
+        return c;
+    }
+}
@@ -16,18 +16,26 @@
 
 package org.cfr.commons.util;
 
+import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang.StringUtils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * PathMatcher implementation for Ant-style path patterns. Examples are provided below.
  *
@@ -50,18 +58,109 @@ import org.apache.commons.lang.StringUtils;
  * @author Arjen Poutsma
  * @since 16.07.2003
  */
-public class AntPathMatcher implements PathMatcher {
+public class AntPathMatcher implements CompilablePathMatcher {
 
     private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{[^/]+?\\}");
 
     /** Default path separator: "/" */
     public static final String DEFAULT_PATH_SEPARATOR = "/";
 
+    /** Number of paths under which {@link #filter(String, List, ForkJoinPool)} does not split the work. */
+    public static final int PARALLEL_FILTER_THRESHOLD = 1024;
+
+    /** Default maximum number of compiled patterns kept in the cache. */
+    public static final int DEFAULT_CACHE_LIMIT = 1024;
+
     private String pathSeparator = DEFAULT_PATH_SEPARATOR;
 
+    private volatile boolean cachePatterns = true;
+
+    private volatile boolean useAutomaton = false;
+
+    private volatile boolean caseSensitive = true;
+
+    private volatile boolean normalizeUnicode = false;
+
+    private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+
+    private volatile Cache<String, AntPathPattern> patternCache = createPatternCache(DEFAULT_CACHE_LIMIT);
+
     /** Set the path separator to use for pattern parsing. Default is "/", as in Ant. */
     public void setPathSeparator(String pathSeparator) {
         this.pathSeparator = (pathSeparator != null ? pathSeparator : DEFAULT_PATH_SEPARATOR);
+        this.patternCache = createPatternCache(this.cacheLimit);
+    }
+
+    /** Return the path separator used for pattern parsing. */
+    String getPathSeparator() {
+        return this.pathSeparator;
+    }
+
+    /**
+     * Specify whether to cache the compiled patterns (tokenized segments and compiled segment matchers) passed into
+     * this matcher's {@link #match} method. A value of <code>true</code> (the default) avoids parsing the same
+     * pattern again on every call, which matters when a small set of patterns is matched repeatedly.
+     * <p>Set it to <code>false</code> if the patterns are rarely reused, e.g. when they are built dynamically.
+     */
+    public void setCachePatterns(boolean cachePatterns) {
+        this.cachePatterns = cachePatterns;
+        if (!cachePatterns) {
+            this.patternCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Specify whether to match the patterns containing '**' segments with an automaton over path segments, see
+     * {@link AntPathAutomaton}. The automaton gives the same results as the default backtracking search, but its
+     * matching time is linear in the number of path segments, whereas the search can be quadratic for patterns having
+     * several '**' segments. It is used by {@link #match} and {@link #filter}; the extraction of URI template variables
+     * always uses the backtracking search. Default is <code>false</code>.
+     */
+    public void setUseAutomaton(boolean useAutomaton) {
+        this.useAutomaton = useAutomaton;
+    }
+
+    /**
+     * Specify whether to match the paths case-sensitively. When <code>false</code>, the characters of the path and of
+     * the pattern are compared once case-folded, as by {@link String#equalsIgnoreCase(String)}; the folding is done
+     * during the comparison of each segment, the path is not copied. The regular expressions of the URI template
+     * variables are then case-insensitive too. Default is <code>true</code>.
+     */
+    public void setCaseSensitive(boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+        this.patternCache = createPatternCache(this.cacheLimit);
+    }
+
+    /** Return whether the paths are matched case-sensitively. */
+    boolean isCaseSensitive() {
+        return this.caseSensitive;
+    }
+
+    /**
+     * Specify whether to put the patterns and the paths in Unicode normalization form C before matching them, so that
+     * a composed character matches its decomposed form, e.g. the names read from a file system storing decomposed
+     * names. A path already in normalization form C, which is the common case, is matched as is; only the other paths
+     * are copied. The paths returned by {@link #extractPathWithinPattern} and the values of the URI template variables
+     * are then taken from the normalized path. Default is <code>false</code>.
+     */
+    public void setNormalizeUnicode(boolean normalizeUnicode) {
+        this.normalizeUnicode = normalizeUnicode;
+        this.patternCache = createPatternCache(this.cacheLimit);
+    }
+
+    /** Return whether the patterns and the paths are put in Unicode normalization form C. */
+    boolean isNormalizeUnicode() {
+        return this.normalizeUnicode;
+    }
+
+    /**
+     * Set the maximum number of compiled patterns kept in the cache. When the limit is reached, the least recently
+     * used patterns are evicted. Default is {@link #DEFAULT_CACHE_LIMIT}.
+     */
+    public void setCacheLimit(int cacheLimit) {
+        Assert.isTrue(cacheLimit > 0, "cacheLimit must be positive");
+        this.cacheLimit = cacheLimit;
+        this.patternCache = createPatternCache(cacheLimit);
     }
 
     public boolean isPattern(String path) {
@@ -76,6 +175,52 @@ public class AntPathMatcher implements PathMatcher {
         return doMatch(pattern, path, false, null);
     }
 
+    /**
+     * Return the paths matching the given <code>pattern</code>. The pattern is compiled once for all paths.
+     * @param pattern the pattern to match against
+     * @param paths the paths to test
+     * @return the matching paths, in input order
+     */
+    public List<String> filter(String pattern, Iterable<String> paths) {
+        Assert.notNull(pattern, "pattern is required");
+        Assert.notNull(paths, "paths is required");
+        AntPathPattern compiledPattern = getCompiledPattern(pattern);
+        List<String> matches = new ArrayList<String>();
+        for (String path : paths) {
+            if (doMatch(compiledPattern, path, true, null)) {
+                matches.add(path);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Return the paths matching the given <code>pattern</code>, testing them in parallel in the given pool. The pattern
+     * is compiled once for all paths; the paths are split into chunks of at least {@link #PARALLEL_FILTER_THRESHOLD}
+     * paths, so small inputs are tested in the calling thread.
+     * @param pattern the pattern to match against
+     * @param paths the paths to test, preferably a {@link java.util.RandomAccess} list
+     * @param pool the pool running the matching, or <code>null</code> to match in the calling thread
+     * @return the matching paths, in input order
+     */
+    public List<String> filter(String pattern, List<String> paths, ForkJoinPool pool) {
+        Assert.notNull(paths, "paths is required");
+        if (pool == null || paths.size() <= PARALLEL_FILTER_THRESHOLD) {
+            return filter(pattern, paths);
+        }
+        Assert.notNull(pattern, "pattern is required");
+        List<String> pathList = paths instanceof RandomAccess ? paths : new ArrayList<String>(paths);
+        boolean[] results = new boolean[pathList.size()];
+        pool.invoke(new FilterTask(getCompiledPattern(pattern), pathList, results, 0, results.length));
+        List<String> matches = new ArrayList<String>();
+        for (int i = 0; i < results.length; i++) {
+            if (results[i]) {
+                matches.add(pathList.get(i));
+            }
+        }
+        return matches;
+    }
+
     /**
      * Actually match the given <code>path</code> against the given <code>pattern</code>.
      *
@@ -86,25 +231,65 @@ public class AntPathMatcher implements PathMatcher {
      * @return <code>true</code> if the supplied <code>path</code> matched, <code>false</code> if it didn't
      */
     protected boolean doMatch(String pattern, String path, boolean fullMatch, Map<String, String> uriTemplateVariables) {
-        if (path.startsWith(this.pathSeparator) != pattern.startsWith(this.pathSeparator)) {
+        AntPathPattern compiledPattern = getCompiledPattern(pattern);
+        if (uriTemplateVariables == null) {
+            return doMatch(compiledPattern, path, fullMatch, null);
+        }
+        return doMatchAndExtract(compiledPattern, path, fullMatch, uriTemplateVariables);
+    }
+
+    /**
+     * Match the given <code>path</code> against the given compiled <code>pattern</code>, putting the URI template
+     * variables in the given map.
+     */
+    private boolean doMatchAndExtract(AntPathPattern compiledPattern, String path, boolean fullMatch,
+        Map<String, String> uriTemplateVariables) {
+        UriTemplateVariables variables = new UriTemplateVariables(this, compiledPattern);
+        boolean result = doMatch(compiledPattern, path, fullMatch, variables);
+        variables.copyTo(uriTemplateVariables);
+        return result;
+    }
+
+    /**
+     * Actually match the given <code>path</code> against the given compiled <code>pattern</code>.
+     *
+     * @param compiledPattern the compiled pattern to match against
+     * @param path the path String to test
+     * @param fullMatch whether a full pattern match is required
+     * @param uriTemplateVariables holder receiving the URI template variables, can be <code>null</code>; it is reset
+     * with the matched form of the path
+     * @return <code>true</code> if the supplied <code>path</code> matched, <code>false</code> if it didn't
+     */
+    boolean doMatch(AntPathPattern compiledPattern, String path, boolean fullMatch,
+        UriTemplateVariables uriTemplateVariables) {
+        path = compiledPattern.normalize(path);
+        if (uriTemplateVariables != null) {
+            uriTemplateVariables.reset(path);
+        }
+        String pattern = compiledPattern.getPattern();
+        String pathSeparator = compiledPattern.getPathSeparator();
+        if (path.startsWith(pathSeparator) != pattern.startsWith(pathSeparator)) {
             return false;
         }
 
-        String[] pattDirs = tokenizeToStringArray(pattern, this.pathSeparator);
-        String[] pathDirs = tokenizeToStringArray(path, this.pathSeparator);
+        String[] pattDirs = compiledPattern.getTokens();
+        PathSegments pathDirs = PathSegments.tokenize(path, pathSeparator);
+
+        if (fullMatch && uriTemplateVariables == null && this.useAutomaton && compiledPattern.getAutomaton() != null) {
+            return compiledPattern.getAutomaton().match(pathDirs);
+        }
 
         int pattIdxStart = 0;
         int pattIdxEnd = pattDirs.length - 1;
         int pathIdxStart = 0;
-        int pathIdxEnd = pathDirs.length - 1;
+        int pathIdxEnd = pathDirs.size() - 1;
 
         // Match all elements up to the first **
         while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-            String patDir = pattDirs[pattIdxStart];
-            if ("**".equals(patDir)) {
+            if (compiledPattern.isDoubleWildcard(pattIdxStart)) {
                 break;
             }
-            if (!matchStrings(patDir, pathDirs[pathIdxStart], uriTemplateVariables)) {
+            if (!matchStrings(compiledPattern, pattIdxStart, pathDirs, pathIdxStart, uriTemplateVariables)) {
                 return false;
             }
             pattIdxStart++;
@@ -114,16 +299,16 @@ public class AntPathMatcher implements PathMatcher {
         if (pathIdxStart > pathIdxEnd) {
             // Path is exhausted, only match if rest of pattern is * or **'s
             if (pattIdxStart > pattIdxEnd) {
-                return (pattern.endsWith(this.pathSeparator) ? path.endsWith(this.pathSeparator) : !path.endsWith(this.pathSeparator));
+                return (pattern.endsWith(pathSeparator) ? path.endsWith(pathSeparator) : !path.endsWith(pathSeparator));
             }
             if (!fullMatch) {
                 return true;
             }
-            if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].equals("*") && path.endsWith(this.pathSeparator)) {
+            if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].equals("*") && path.endsWith(pathSeparator)) {
                 return true;
             }
             for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-                if (!pattDirs[i].equals("**")) {
+                if (!compiledPattern.isDoubleWildcard(i)) {
                     return false;
                 }
             }
@@ -131,18 +316,17 @@ public class AntPathMatcher implements PathMatcher {
         } else if (pattIdxStart > pattIdxEnd) {
             // String not exhausted, but pattern is. Failure.
             return false;
-        } else if (!fullMatch && "**".equals(pattDirs[pattIdxStart])) {
+        } else if (!fullMatch && compiledPattern.isDoubleWildcard(pattIdxStart)) {
             // Path start definitely matches due to "**" part in pattern.
             return true;
         }
 
         // up to last '**'
         while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-            String patDir = pattDirs[pattIdxEnd];
-            if (patDir.equals("**")) {
+            if (compiledPattern.isDoubleWildcard(pattIdxEnd)) {
                 break;
             }
-            if (!matchStrings(patDir, pathDirs[pathIdxEnd], uriTemplateVariables)) {
+            if (!matchStrings(compiledPattern, pattIdxEnd, pathDirs, pathIdxEnd, uriTemplateVariables)) {
                 return false;
             }
             pattIdxEnd--;
@@ -151,7 +335,7 @@ public class AntPathMatcher implements PathMatcher {
         if (pathIdxStart > pathIdxEnd) {
             // String is exhausted
             for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-                if (!pattDirs[i].equals("**")) {
+                if (!compiledPattern.isDoubleWildcard(i)) {
                     return false;
                 }
             }
@@ -161,7 +345,7 @@ public class AntPathMatcher implements PathMatcher {
         while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
             int patIdxTmp = -1;
             for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
-                if (pattDirs[i].equals("**")) {
+                if (compiledPattern.isDoubleWildcard(i)) {
                     patIdxTmp = i;
                     break;
                 }
@@ -179,9 +363,8 @@ public class AntPathMatcher implements PathMatcher {
 
             strLoop: for (int i = 0; i <= strLength - patLength; i++) {
                 for (int j = 0; j < patLength; j++) {
-                    String subPat = pattDirs[pattIdxStart + j + 1];
-                    String subStr = pathDirs[pathIdxStart + i + j];
-                    if (!matchStrings(subPat, subStr, uriTemplateVariables)) {
+                    if (!matchStrings(compiledPattern, pattIdxStart + j + 1, pathDirs, pathIdxStart + i + j,
+                        uriTemplateVariables)) {
                         continue strLoop;
                     }
                 }
@@ -198,7 +381,7 @@ public class AntPathMatcher implements PathMatcher {
         }
 
         for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-            if (!pattDirs[i].equals("**")) {
+            if (!compiledPattern.isDoubleWildcard(i)) {
                 return false;
             }
         }
@@ -207,16 +390,52 @@ public class AntPathMatcher implements PathMatcher {
     }
 
     /**
-     * Tests whether or not a string matches against a pattern. The pattern may contain two special characters:<br> '*'
-     * means zero or more characters<br> '?' means one and only one character
+     * Tests whether or not a string matches against a pattern segment. The pattern may contain two special
+     * characters:<br> '*' means zero or more characters<br> '?' means one and only one character
      *
-     * @param pattern pattern to match against. Must not be <code>null</code>.
-     * @param str string which must be matched against the pattern. Must not be <code>null</code>.
+     * @param pattern compiled pattern to match against. Must not be <code>null</code>.
+     * @param index index of the pattern segment to match against.
+     * @param pathDirs segments of the path. Must not be <code>null</code>.
+     * @param pathIndex index of the path segment which must be matched against the pattern.
      * @return <code>true</code> if the string matches against the pattern, or <code>false</code> otherwise.
      */
-    private boolean matchStrings(String pattern, String str, Map<String, String> uriTemplateVariables) {
-        AntPathStringMatcher matcher = new AntPathStringMatcher(pattern, str, uriTemplateVariables);
-        return matcher.matchStrings();
+    private boolean matchStrings(AntPathPattern pattern, int index, PathSegments pathDirs, int pathIndex,
+        UriTemplateVariables uriTemplateVariables) {
+        return pattern.matchToken(index, pathDirs.getPath(), pathDirs.getStart(pathIndex), pathDirs.getEnd(pathIndex),
+            uriTemplateVariables);
+    }
+
+    /**
+     * Return the compiled form of the given pattern, from the cache if pattern caching is enabled.
+     * @param pattern the pattern to compile
+     * @return the compiled pattern (never <code>null</code>)
+     */
+    AntPathPattern getCompiledPattern(String pattern) {
+        if (!this.cachePatterns) {
+            return createCompiledPattern(pattern);
+        }
+        Cache<String, AntPathPattern> cache = this.patternCache;
+        AntPathPattern compiledPattern = cache.getIfPresent(pattern);
+        if (compiledPattern == null) {
+            compiledPattern = createCompiledPattern(pattern);
+            cache.put(pattern, compiledPattern);
+        }
+        return compiledPattern;
+    }
+
+    private AntPathPattern createCompiledPattern(String pattern) {
+        return new AntPathPattern(this, pattern, this.pathSeparator, this.caseSensitive, this.normalizeUnicode);
+    }
+
+    private static Cache<String, AntPathPattern> createPatternCache(int cacheLimit) {
+        return CacheBuilder.newBuilder().maximumSize(cacheLimit).<String, AntPathPattern> build();
+    }
+
+    /**
+     * Return the Unicode normalization form C of the given string, the string itself if already normalized.
+     */
+    static String normalize(String str) {
+        return Normalizer.isNormalized(str, Normalizer.Form.NFC) ? str : Normalizer.normalize(str, Normalizer.Form.NFC);
     }
 
     /**
@@ -233,8 +452,19 @@ public class AntPathMatcher implements PathMatcher {
      * does <strong>not</strong> enforce this.
      */
     public String extractPathWithinPattern(String pattern, String path) {
-        String[] patternParts = tokenizeToStringArray(pattern, this.pathSeparator);
-        String[] pathParts = tokenizeToStringArray(path, this.pathSeparator);
+        return extractPathWithinPattern(getCompiledPattern(pattern), path);
+    }
+
+    /**
+     * Given a compiled pattern and a full path, determine the pattern-mapped part.
+     * @see #extractPathWithinPattern(String, String)
+     */
+    String extractPathWithinPattern(AntPathPattern compiledPattern, String path) {
+        path = compiledPattern.normalize(path);
+        String pattern = compiledPattern.getPattern();
+        String pathSeparator = compiledPattern.getPathSeparator();
+        String[] patternParts = compiledPattern.getTokens();
+        PathSegments pathParts = PathSegments.tokenize(path, pathSeparator);
 
         StringBuilder builder = new StringBuilder();
 
@@ -242,26 +472,37 @@ public class AntPathMatcher implements PathMatcher {
         int puts = 0;
         for (int i = 0; i < patternParts.length; i++) {
             String patternPart = patternParts[i];
-            if ((patternPart.indexOf('*') > -1 || patternPart.indexOf('?') > -1) && pathParts.length >= i + 1) {
-                if (puts > 0 || (i == 0 && !pattern.startsWith(this.pathSeparator))) {
-                    builder.append(this.pathSeparator);
+            if ((patternPart.indexOf('*') > -1 || patternPart.indexOf('?') > -1) && pathParts.size() >= i + 1) {
+                if (puts > 0 || (i == 0 && !pattern.startsWith(pathSeparator))) {
+                    builder.append(pathSeparator);
                 }
-                builder.append(pathParts[i]);
+                pathParts.appendTo(builder, i);
                 puts++;
             }
         }
 
         // Append any trailing path parts.
-        for (int i = patternParts.length; i < pathParts.length; i++) {
+        for (int i = patternParts.length; i < pathParts.size(); i++) {
             if (puts > 0 || i > 0) {
-                builder.append(this.pathSeparator);
+                builder.append(pathSeparator);
             }
-            builder.append(pathParts[i]);
+            pathParts.appendTo(builder, i);
         }
 
         return builder.toString();
     }
 
+    /**
+     * Create a reusable holder of the URI template variables of the given pattern. The holder matches paths against
+     * the precompiled pattern and records the variables as offsets into the path, see {@link UriTemplateVariables}.
+     * @param pattern the URI template
+     * @return a new holder, to be used by one thread at a time
+     */
+    public UriTemplateVariables createUriTemplateVariables(String pattern) {
+        Assert.notNull(pattern, "pattern is required");
+        return new UriTemplateVariables(this, getCompiledPattern(pattern));
+    }
+
     public Map<String, String> extractUriTemplateVariables(String pattern, String path) {
         Map<String, String> variables = new LinkedHashMap<String, String>();
         boolean result = doMatch(pattern, path, true, variables);
@@ -269,6 +510,26 @@ public class AntPathMatcher implements PathMatcher {
         return variables;
     }
 
+    /**
+     * Extract the URI template variables of the given path matched by the given compiled pattern.
+     * @see #extractUriTemplateVariables(String, String)
+     */
+    Map<String, String> extractUriTemplateVariables(AntPathPattern compiledPattern, String path) {
+        Map<String, String> variables = new LinkedHashMap<String, String>();
+        boolean result = doMatchAndExtract(compiledPattern, path, true, variables);
+        Assert.state(result, "Pattern \"" + compiledPattern.getPattern() + "\" is not a match for \"" + path + "\"");
+        return variables;
+    }
+
+    /**
+     * Compile the given pattern. The compiled pattern is taken from the pattern cache if pattern caching is enabled.
+     * It keeps the path separator of this matcher at compilation time.
+     */
+    public PathPattern compile(String pattern) {
+        Assert.notNull(pattern, "pattern is required");
+        return getCompiledPattern(pattern);
+    }
+
     /**
      * Combines two patterns into a new pattern that is returned. <p>This implementation simply concatenates the two
      * patterns, unless the first pattern contains a file extension match (such as {@code *.html}. In that case, the second
@@ -286,15 +547,24 @@ public class AntPathMatcher implements PathMatcher {
      * @param pattern2 the second pattern
      * @return the combination of the two patterns
      * @throws IllegalArgumentException when the two patterns cannot be combined
+     * @see PathPattern#combine(String)
      */
     public String combine(String pattern1, String pattern2) {
+        return doCombine(pattern1, pattern2, null);
+    }
+
+    /**
+     * Combine two patterns, matching the second pattern against the given compiled form of the first one if not
+     * <code>null</code>.
+     */
+    String doCombine(String pattern1, String pattern2, AntPathPattern compiledPattern1) {
         if (!StringUtils.isNotEmpty(pattern1) && !StringUtils.isNotEmpty(pattern2)) {
             return "";
         } else if (!StringUtils.isNotEmpty(pattern1)) {
             return pattern2;
         } else if (!StringUtils.isNotEmpty(pattern2)) {
             return pattern1;
-        } else if (match(pattern1, pattern2)) {
+        } else if (compiledPattern1 != null ? compiledPattern1.match(pattern2) : match(pattern1, pattern2)) {
             return pattern2;
         } else if (pattern1.endsWith("/*")) {
             if (pattern2.startsWith("/")) {
@@ -357,14 +627,20 @@ public class AntPathMatcher implements PathMatcher {
      * @return a comparator capable of sorting patterns in order of explicitness
      */
     public Comparator<String> getPatternComparator(String path) {
-        return new AntPatternComparator(path);
+        return new AntPatternComparator(this, path);
     }
 
     private static class AntPatternComparator implements Comparator<String> {
 
+        private final AntPathMatcher pathMatcher;
+
         private final String path;
 
-        private AntPatternComparator(String path) {
+        /** Specificity of the compared patterns, so each pattern is analyzed once per sort. */
+        private final Map<String, PatternSpecificity> specificities = new ConcurrentHashMap<String, PatternSpecificity>();
+
+        private AntPatternComparator(AntPathMatcher pathMatcher, String path) {
+            this.pathMatcher = pathMatcher;
             this.path = path;
         }
 
@@ -385,42 +661,93 @@ public class AntPathMatcher implements PathMatcher {
             } else if (pattern2EqualsPath) {
                 return 1;
             }
-            int wildCardCount1 = getWildCardCount(pattern1);
-            int wildCardCount2 = getWildCardCount(pattern2);
+            return getSpecificity(pattern1).compareTo(getSpecificity(pattern2));
+        }
 
-            int bracketCount1 = countOccurrencesOf(pattern1, "{");
-            int bracketCount2 = countOccurrencesOf(pattern2, "{");
+        private PatternSpecificity getSpecificity(String pattern) {
+            PatternSpecificity specificity = specificities.get(pattern);
+            if (specificity == null) {
+                specificity = pathMatcher.getSpecificity(pattern);
+                specificities.put(pattern, specificity);
+            }
+            return specificity;
+        }
+    }
 
-            int totalCount1 = wildCardCount1 + bracketCount1;
-            int totalCount2 = wildCardCount2 + bracketCount2;
+    /**
+     * Return the specificity of the given pattern, from the compiled pattern cache if the pattern is already compiled.
+     * The pattern is not compiled otherwise: sorting patterns must neither evict the compiled patterns in use nor fail
+     * on a pattern which cannot be compiled.
+     */
+    PatternSpecificity getSpecificity(String pattern) {
+        if (this.cachePatterns) {
+            AntPathPattern compiledPattern = this.patternCache.getIfPresent(pattern);
+            if (compiledPattern != null) {
+                return compiledPattern.getSpecificity();
+            }
+        }
+        return new PatternSpecificity(pattern);
+    }
+
+    /**
+     * Specificity of a pattern, as used by the pattern comparator: the number of wildcards, the number of URI template
+     * variables and the length of the pattern, where template variables are considered to be 1 long. The counts are
+     * computed once, so comparing two specificities compares primitives only.
+     */
+    static final class PatternSpecificity implements Comparable<PatternSpecificity> {
+
+        private final int wildCardCount;
+
+        private final int bracketCount;
+
+        private final int length;
+
+        PatternSpecificity(String pattern) {
+            this.wildCardCount = getWildCardCount(pattern);
+            this.bracketCount = countOccurrencesOf(pattern, "{");
+            this.length = getPatternLength(pattern);
+        }
+
+        int getWildCardCount() {
+            return wildCardCount;
+        }
+
+        int getBracketCount() {
+            return bracketCount;
+        }
+
+        int getLength() {
+            return length;
+        }
+
+        public int compareTo(PatternSpecificity other) {
+            int totalCount1 = wildCardCount + bracketCount;
+            int totalCount2 = other.wildCardCount + other.bracketCount;
 
             if (totalCount1 != totalCount2) {
                 return totalCount1 - totalCount2;
             }
 
-            int pattern1Length = getPatternLength(pattern1);
-            int pattern2Length = getPatternLength(pattern2);
-
-            if (pattern1Length != pattern2Length) {
-                return pattern2Length - pattern1Length;
+            if (length != other.length) {
+                return other.length - length;
             }
 
-            if (wildCardCount1 < wildCardCount2) {
+            if (wildCardCount < other.wildCardCount) {
                 return -1;
-            } else if (wildCardCount2 < wildCardCount1) {
+            } else if (other.wildCardCount < wildCardCount) {
                 return 1;
             }
 
-            if (bracketCount1 < bracketCount2) {
+            if (bracketCount < other.bracketCount) {
                 return -1;
-            } else if (bracketCount2 < bracketCount1) {
+            } else if (other.bracketCount < bracketCount) {
                 return 1;
             }
 
             return 0;
         }
 
-        private int getWildCardCount(String pattern) {
+        private static int getWildCardCount(String pattern) {
             if (pattern.endsWith(".*")) {
                 pattern = pattern.substring(0, pattern.length() - 2);
             }
@@ -430,13 +757,139 @@ public class AntPathMatcher implements PathMatcher {
         /**
          * Returns the length of the given pattern, where template variables are considered to be 1 long.
          */
-        private int getPatternLength(String pattern) {
+        private static int getPatternLength(String pattern) {
             Matcher m = VARIABLE_PATTERN.matcher(pattern);
             return m.replaceAll("#")
                     .length();
         }
     }
 
+    /**
+     * Matches a range of paths, splitting it in halves while it is larger than {@link #PARALLEL_FILTER_THRESHOLD}.
+     */
+    private final class FilterTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final AntPathPattern compiledPattern;
+
+        private final List<String> paths;
+
+        private final boolean[] results;
+
+        private final int from;
+
+        private final int to;
+
+        FilterTask(AntPathPattern compiledPattern, List<String> paths, boolean[] results, int from, int to) {
+            this.compiledPattern = compiledPattern;
+            this.paths = paths;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_FILTER_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results[i] = doMatch(compiledPattern, paths.get(i), true, null);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new FilterTask(compiledPattern, paths, results, from, middle), new FilterTask(compiledPattern,
+                    paths, results, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Segments of a path, held as index ranges over the path instead of substrings.
+     * <p>The path is split as {@link #tokenizeToStringArray(String, String)} does: each character of the separator is a
+     * delimiter, the segments are trimmed and the empty segments are omitted. An instance is reused by each thread, so
+     * the matching of a path allocates neither an array nor a String per segment. It must not be kept after the
+     * matching.
+     */
+    static final class PathSegments {
+
+        private static final ThreadLocal<PathSegments> CURRENT = new ThreadLocal<PathSegments>();
+
+        private String path;
+
+        /** Start (even index) and end (odd index) of each segment. */
+        private int[] bounds = new int[16];
+
+        private int size;
+
+        static PathSegments tokenize(String path, String delimiters) {
+            PathSegments segments = CURRENT.get();
+            if (segments == null) {
+                segments = new PathSegments();
+                CURRENT.set(segments);
+            }
+            segments.split(path, delimiters);
+            return segments;
+        }
+
+        private void split(String path, String delimiters) {
+            this.path = path;
+            this.size = 0;
+            int length = path.length();
+            int index = 0;
+            while (index < length) {
+                while (index < length && delimiters.indexOf(path.charAt(index)) >= 0) {
+                    index++;
+                }
+                int start = index;
+                while (index < length && delimiters.indexOf(path.charAt(index)) < 0) {
+                    index++;
+                }
+                int end = index;
+                // same trimming as String.trim()
+                while (start < end && path.charAt(start) <= ' ') {
+                    start++;
+                }
+                while (end > start && path.charAt(end - 1) <= ' ') {
+                    end--;
+                }
+                if (start < end) {
+                    add(start, end);
+                }
+            }
+        }
+
+        private void add(int start, int end) {
+            if (bounds.length == 2 * size) {
+                int[] newBounds = new int[bounds.length * 2];
+                System.arraycopy(bounds, 0, newBounds, 0, bounds.length);
+                bounds = newBounds;
+            }
+            bounds[2 * size] = start;
+            bounds[2 * size + 1] = end;
+            size++;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int getStart(int index) {
+            return bounds[2 * index];
+        }
+
+        int getEnd(int index) {
+            return bounds[2 * index + 1];
+        }
+
+        void appendTo(StringBuilder builder, int index) {
+            builder.append(path, getStart(index), getEnd(index));
+        }
+    }
+
     /**
      * Tokenize the given String into a String array via a StringTokenizer.
      * Trims tokens and omits empty tokens.
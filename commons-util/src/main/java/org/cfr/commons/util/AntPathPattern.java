@@ -0,0 +1,217 @@
+package org.cfr.commons.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Package-protected helper class for {@link AntPathMatcher}. Holds the pre-parsed form of an Ant-style pattern: the
+ * pattern tokenized into its directory segments and, for each segment, a compiled {@link AntPathSegmentMatcher}.
+ * It is the {@link PathPattern} returned by {@link AntPathMatcher#compile(String)}.
+ *
+ * <p>Instances are immutable and can be shared between threads, which allows {@link AntPathMatcher} to cache them.
+ * The patterns they are combined with are memoized with the compiled combination, see {@link #combine(String)}.
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+final class AntPathPattern implements PathPattern {
+
+    private static final String DOUBLE_WILDCARD = "**";
+
+    /** Maximum number of combinations memoized by a pattern. */
+    private static final int COMBINATION_CACHE_LIMIT = 256;
+
+    private final AntPathMatcher pathMatcher;
+
+    private final String pattern;
+
+    private final String pathSeparator;
+
+    private final boolean caseSensitive;
+
+    private final boolean normalizeUnicode;
+
+    private final String[] tokens;
+
+    private final AntPathSegmentMatcher[] matchers;
+
+    private final List<String> variableNames;
+
+    private final AntPathMatcher.PatternSpecificity specificity;
+
+    private final AntPathAutomaton automaton;
+
+    /** Compiled combinations of this pattern, by combined pattern, created on first use. */
+    private volatile Cache<String, AntPathPattern> combinations;
+
+    /**
+     * Parse the given pattern.
+     * @param pathMatcher the matcher compiling the pattern
+     * @param pattern the pattern to parse
+     * @param pathSeparator the path separator used to tokenize the pattern
+     * @param caseSensitive whether the segments are matched case-sensitively
+     * @param normalizeUnicode whether the pattern and the matched paths are put in Unicode normalization form C
+     */
+    AntPathPattern(AntPathMatcher pathMatcher, String pattern, String pathSeparator, boolean caseSensitive,
+        boolean normalizeUnicode) {
+        this.pathMatcher = pathMatcher;
+        this.pattern = pattern;
+        this.pathSeparator = pathSeparator;
+        this.caseSensitive = caseSensitive;
+        this.normalizeUnicode = normalizeUnicode;
+        this.tokens = AntPathMatcher.tokenizeToStringArray(normalizeUnicode ? AntPathMatcher.normalize(pattern)
+                : pattern, pathSeparator);
+        this.matchers = new AntPathSegmentMatcher[tokens.length];
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < tokens.length; i++) {
+            if (!DOUBLE_WILDCARD.equals(tokens[i])) {
+                matchers[i] = AntPathSegmentMatcher.compile(tokens[i], names.size(), caseSensitive);
+                names.addAll(matchers[i].getVariableNames());
+            }
+        }
+        this.variableNames = Collections.unmodifiableList(names);
+        this.specificity = new AntPathMatcher.PatternSpecificity(pattern);
+        this.automaton = AntPathAutomaton.compile(this);
+    }
+
+    /** Return the original pattern String. */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /** Return the path separator used to tokenize the pattern and the matched paths. */
+    String getPathSeparator() {
+        return pathSeparator;
+    }
+
+    /** Return whether the segments are matched case-sensitively. */
+    boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    /**
+     * Return the form of the given path matched against the pattern: the path itself, or its normalization form C
+     * when Unicode normalization is enabled and the path is not already normalized.
+     */
+    String normalize(String path) {
+        return normalizeUnicode ? AntPathMatcher.normalize(path) : path;
+    }
+
+    public boolean match(String path) {
+        return pathMatcher.doMatch(this, path, true, null);
+    }
+
+    public boolean matchStart(String path) {
+        return pathMatcher.doMatch(this, path, false, null);
+    }
+
+    public String extractPathWithinPattern(String path) {
+        return pathMatcher.extractPathWithinPattern(this, path);
+    }
+
+    public Map<String, String> extractUriTemplateVariables(String path) {
+        return pathMatcher.extractUriTemplateVariables(this, path);
+    }
+
+    /**
+     * Combine this pattern with the given one as {@link AntPathMatcher#combine(String, String)} does, using this
+     * compiled form to test whether the given pattern is already included in this one. The combination is compiled
+     * with the settings of this pattern, which validates it, and memoized.
+     */
+    public PathPattern combine(String pattern) {
+        // a null pattern combines as the empty one
+        String key = pattern != null ? pattern : "";
+        Cache<String, AntPathPattern> cache = getCombinations();
+        AntPathPattern combination = cache.getIfPresent(key);
+        if (combination == null) {
+            String combinedPattern = pathMatcher.doCombine(this.pattern, key, this);
+            combination = combinedPattern.equals(this.pattern) ? this : new AntPathPattern(pathMatcher,
+                    combinedPattern, pathSeparator, caseSensitive, normalizeUnicode);
+            cache.put(key, combination);
+        }
+        return combination;
+    }
+
+    private Cache<String, AntPathPattern> getCombinations() {
+        Cache<String, AntPathPattern> cache = combinations;
+        if (cache == null) {
+            synchronized (this) {
+                cache = combinations;
+                if (cache == null) {
+                    cache = CacheBuilder.newBuilder().maximumSize(COMBINATION_CACHE_LIMIT)
+                            .<String, AntPathPattern> build();
+                    combinations = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /** Return the specificity of the pattern, used to sort the patterns matching a path. */
+    AntPathMatcher.PatternSpecificity getSpecificity() {
+        return specificity;
+    }
+
+    /** Return the automaton matching the pattern, <code>null</code> if the pattern has no '**' segment. */
+    AntPathAutomaton getAutomaton() {
+        return automaton;
+    }
+
+    /** Return the number of segments of the pattern. */
+    int size() {
+        return tokens.length;
+    }
+
+    /** Return the segments of the pattern; the returned array must not be modified. */
+    String[] getTokens() {
+        return tokens;
+    }
+
+    /** Return the segment at the given index. */
+    String getToken(int index) {
+        return tokens[index];
+    }
+
+    /** Return whether the segment at the given index is a '**' segment. */
+    boolean isDoubleWildcard(int index) {
+        return matchers[index] == null;
+    }
+
+    /** Return the names of the URI template variables of the pattern, in declaration order. */
+    List<String> getVariableNames() {
+        return variableNames;
+    }
+
+    /** Return whether the segment at the given index has no wildcard and matches only an equal path segment. */
+    boolean isLiteral(int index) {
+        return matchers[index] instanceof AntPathSegmentMatcher.LiteralSegmentMatcher;
+    }
+
+    /** Return the matcher of the segment at the given index, <code>null</code> for a '**' segment. */
+    AntPathSegmentMatcher getMatcher(int index) {
+        return matchers[index];
+    }
+
+    /**
+     * Test whether the range <code>[start, end)</code> of the given path matches against the pattern segment at the
+     * given index.
+     * @param index the index of the pattern segment, must not be a '**' segment
+     * @param path the path holding the segment
+     * @param start the index of the first character of the segment
+     * @param end the index after the last character of the segment
+     * @param uriTemplateVariables holder receiving the URI template variables, can be <code>null</code>
+     */
+    boolean matchToken(int index, CharSequence path, int start, int end, UriTemplateVariables uriTemplateVariables) {
+        return matchers[index].match(path, start, end, uriTemplateVariables);
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
@@ -0,0 +1,301 @@
+package org.cfr.commons.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the best Ant-style pattern matching a path among a large set of patterns.
+ *
+ * <p>The patterns are compiled into a trie of path segments: literal segments are looked up by hash, wildcard
+ * segments and '**' segments are kept as separate branches. A lookup walks the trie along the segments of the path,
+ * so its cost depends on the number of path segments and of the wildcard branches actually traversed rather than on
+ * the total number of patterns. The few candidate patterns reached are then verified against their compiled form and
+ * the best one is chosen in the order of {@link AntPathMatcher#getPatternComparator(String)}, so the result is the
+ * same as testing every pattern and sorting the matching ones. The compiled patterns are kept by the router, so the
+ * lookups do not depend on the pattern cache of the matcher. When several patterns are equally specific, the first registered wins.
+ *
+ * <p>Routes must be registered before the router is used for lookups. Lookups can then be performed concurrently.
+ * The path separator, the case sensitivity and the Unicode normalization of the matcher must not be changed after the
+ * first registration. When the matcher is case-insensitive, the literal segments are looked up by their case-folded
+ * form.
+ *
+ * @author devacfr
+ * @since 1.1
+ * @param <T> the type of target associated with a pattern
+ */
+public class AntPathRouter<T> {
+
+    private final AntPathMatcher pathMatcher;
+
+    /** Patterns starting with the path separator. */
+    private final Node<T> absoluteRoot = new Node<T>(0, null);
+
+    /** Patterns not starting with the path separator. */
+    private final Node<T> relativeRoot = new Node<T>(1, null);
+
+    private final Map<String, Route<T>> routes = new LinkedHashMap<String, Route<T>>();
+
+    private int nodeCount = 2;
+
+    /**
+     * Create a router using a default {@link AntPathMatcher}.
+     */
+    public AntPathRouter() {
+        this(new AntPathMatcher());
+    }
+
+    /**
+     * Create a router.
+     * @param pathMatcher the matcher used to parse and verify the patterns.
+     */
+    public AntPathRouter(AntPathMatcher pathMatcher) {
+        this.pathMatcher = Assert.notNull(pathMatcher, "pathMatcher is required");
+    }
+
+    /**
+     * Register a pattern and its target. Registering an already registered pattern replaces its target.
+     * @param pattern the Ant-style pattern.
+     * @param target the target associated with the pattern.
+     * @return the target previously associated with the pattern, or <code>null</code>.
+     */
+    public T addRoute(String pattern, T target) {
+        Assert.notNull(pattern, "pattern is required");
+        Route<T> existing = routes.get(pattern);
+        if (existing != null) {
+            T previous = existing.target;
+            existing.target = target;
+            return previous;
+        }
+        AntPathPattern compiledPattern = pathMatcher.getCompiledPattern(pattern);
+        Route<T> route = new Route<T>(compiledPattern, target, routes.size());
+        routes.put(pattern, route);
+
+        Node<T> node = pattern.startsWith(pathMatcher.getPathSeparator()) ? absoluteRoot : relativeRoot;
+        for (int i = 0; i < compiledPattern.size(); i++) {
+            node = node.getOrCreateChild(compiledPattern, i, this);
+        }
+        node.routes.add(route);
+        return null;
+    }
+
+    /**
+     * @return the number of registered patterns.
+     */
+    public int size() {
+        return routes.size();
+    }
+
+    /**
+     * Find the target of the best pattern matching the given path.
+     * @param path the path to route.
+     * @return the target of the best matching pattern, or <code>null</code> if no pattern matches.
+     */
+    public T route(String path) {
+        Route<T> route = lookupRoute(path);
+        return route != null ? route.target : null;
+    }
+
+    /**
+     * Find the best pattern matching the given path.
+     * @param path the path to route.
+     * @return the best matching pattern, or <code>null</code> if no pattern matches.
+     */
+    public String lookupPattern(String path) {
+        Route<T> route = lookupRoute(path);
+        return route != null ? route.pattern : null;
+    }
+
+    /**
+     * Find all the patterns matching the given path.
+     * @param path the path to route.
+     * @return the matching patterns, from the most to the least specific.
+     */
+    public List<String> getMatchingPatterns(String path) {
+        List<Route<T>> matches = findMatchingRoutes(path);
+        Collections.sort(matches, new RouteComparator<T>(path));
+        List<String> patterns = new ArrayList<String>(matches.size());
+        for (Route<T> route : matches) {
+            patterns.add(route.pattern);
+        }
+        return patterns;
+    }
+
+    private Route<T> lookupRoute(String path) {
+        List<Route<T>> matches = findMatchingRoutes(path);
+        if (matches.isEmpty()) {
+            return null;
+        }
+        RouteComparator<T> comparator = new RouteComparator<T>(path);
+        Route<T> best = matches.get(0);
+        for (int i = 1; i < matches.size(); i++) {
+            if (comparator.compare(matches.get(i), best) < 0) {
+                best = matches.get(i);
+            }
+        }
+        return best;
+    }
+
+    private List<Route<T>> findMatchingRoutes(String path) {
+        Assert.notNull(path, "path is required");
+        String pathSeparator = pathMatcher.getPathSeparator();
+        if (pathMatcher.isNormalizeUnicode()) {
+            path = AntPathMatcher.normalize(path);
+        }
+        String[] pathDirs = AntPathMatcher.tokenizeToStringArray(path, pathSeparator);
+        String[] literalKeys = pathDirs;
+        if (!pathMatcher.isCaseSensitive()) {
+            literalKeys = new String[pathDirs.length];
+            for (int i = 0; i < pathDirs.length; i++) {
+                literalKeys[i] = AntPathSegmentMatcher.foldCase(pathDirs[i]);
+            }
+        }
+        Node<T> root = path.startsWith(pathSeparator) ? absoluteRoot : relativeRoot;
+
+        Set<Route<T>> candidates = new LinkedHashSet<Route<T>>();
+        collect(root, pathDirs, literalKeys, 0, new BitSet(), candidates);
+
+        List<Route<T>> matches = new ArrayList<Route<T>>(candidates.size());
+        for (Route<T> candidate : candidates) {
+            if (pathMatcher.doMatch(candidate.compiledPattern, path, true, null)) {
+                matches.add(candidate);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Collect the routes whose segments can match the path segments from <code>index</code>. The candidates are a
+     * superset of the matching routes: the trailing separator rules are left to the verification.
+     */
+    private void collect(Node<T> node, String[] pathDirs, String[] literalKeys, int index, BitSet visited,
+        Set<Route<T>> candidates) {
+        int key = node.id * (pathDirs.length + 1) + index;
+        if (visited.get(key)) {
+            return;
+        }
+        visited.set(key);
+        if (index == pathDirs.length) {
+            candidates.addAll(node.routes);
+            // a trailing '*' segment matches a path ending with the separator
+            Node<T> star = node.wildcards.get("*");
+            if (star != null) {
+                candidates.addAll(star.routes);
+            }
+        } else {
+            String pathDir = pathDirs[index];
+            Node<T> literal = node.literals.get(literalKeys[index]);
+            if (literal != null) {
+                collect(literal, pathDirs, literalKeys, index + 1, visited, candidates);
+            }
+            for (Node<T> wildcard : node.wildcards.values()) {
+                if (wildcard.matcher.match(pathDir, null)) {
+                    collect(wildcard, pathDirs, literalKeys, index + 1, visited, candidates);
+                }
+            }
+        }
+        if (node.doubleWildcard != null) {
+            for (int i = index; i <= pathDirs.length; i++) {
+                collect(node.doubleWildcard, pathDirs, literalKeys, i, visited, candidates);
+            }
+        }
+    }
+
+    /**
+     * Node of the segment trie.
+     */
+    private static final class Node<T> {
+
+        private final int id;
+
+        /** Matcher of the segment leading to this node, <code>null</code> for a root or a '**' node. */
+        private final AntPathSegmentMatcher matcher;
+
+        private final Map<String, Node<T>> literals = new LinkedHashMap<String, Node<T>>();
+
+        private final Map<String, Node<T>> wildcards = new LinkedHashMap<String, Node<T>>();
+
+        private Node<T> doubleWildcard;
+
+        /** Routes whose last segment leads to this node. */
+        private final List<Route<T>> routes = new ArrayList<Route<T>>(1);
+
+        Node(int id, AntPathSegmentMatcher matcher) {
+            this.id = id;
+            this.matcher = matcher;
+        }
+
+        Node<T> getOrCreateChild(AntPathPattern pattern, int index, AntPathRouter<T> router) {
+            if (pattern.isDoubleWildcard(index)) {
+                if (doubleWildcard == null) {
+                    doubleWildcard = new Node<T>(router.nodeCount++, null);
+                }
+                return doubleWildcard;
+            }
+            Map<String, Node<T>> children = pattern.isLiteral(index) ? literals : wildcards;
+            String token = pattern.getToken(index);
+            if (!pattern.isCaseSensitive() && children == literals) {
+                token = AntPathSegmentMatcher.foldCase(token);
+            }
+            Node<T> child = children.get(token);
+            if (child == null) {
+                child = new Node<T>(router.nodeCount++, pattern.getMatcher(index));
+                children.put(token, child);
+            }
+            return child;
+        }
+    }
+
+    /**
+     * Registered pattern.
+     */
+    private static final class Route<T> {
+
+        private final String pattern;
+
+        private final AntPathPattern compiledPattern;
+
+        private final int order;
+
+        private volatile T target;
+
+        Route(AntPathPattern compiledPattern, T target, int order) {
+            this.pattern = compiledPattern.getPattern();
+            this.compiledPattern = compiledPattern;
+            this.target = target;
+            this.order = order;
+        }
+    }
+
+    /**
+     * Orders the routes as {@link AntPathMatcher#getPatternComparator(String)} orders their patterns, using the
+     * specificity of the compiled patterns, then by registration order.
+     */
+    private static final class RouteComparator<T> implements Comparator<Route<T>> {
+
+        private final String path;
+
+        RouteComparator(String path) {
+            this.path = path;
+        }
+
+        public int compare(Route<T> route1, Route<T> route2) {
+            boolean route1EqualsPath = route1.pattern.equals(path);
+            boolean route2EqualsPath = route2.pattern.equals(path);
+            if (route1EqualsPath != route2EqualsPath) {
+                return route1EqualsPath ? -1 : 1;
+            }
+            int result = route1.compiledPattern.getSpecificity().compareTo(route2.compiledPattern.getSpecificity());
+            if (result != 0) {
+                return result;
+            }
+            return route1.order < route2.order ? -1 : (route1.order == route2.order ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package org.cfr.commons.util;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Package-protected helper class for {@link AntPathMatcher}. Tests whether or not a path segment matches against a
+ * pattern segment.
+ *
+ * <p>The simple wildcard segments (literal, <code>prefix*</code>, <code>*suffix</code>, <code>*contains*</code> and
+ * segments using only '?') are matched with character comparisons; the other segments, and in particular the URI
+ * template segments like <code>{var:regex}</code>, fall back to an {@link AntPathStringMatcher}. Both forms give the
+ * same results: as with the regular expression, '*' and '?' never match a line terminator.
+ *
+ * <p>A segment matcher works on a range of a <code>CharSequence</code>, so the path needs not be split into
+ * strings. When case-insensitive, the characters are folded one by one while they are compared, the way the
+ * {@link java.util.regex.Pattern#UNICODE_CASE} regular expressions do. Instances are immutable and can be shared between
+ * threads.
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+abstract class AntPathSegmentMatcher {
+
+    /**
+     * Compile the given pattern segment into the fastest matcher able to handle it.
+     * @param pattern the pattern segment, must not be a '**' segment
+     * @return the segment matcher
+     */
+    static AntPathSegmentMatcher compile(String pattern) {
+        return compile(pattern, 0, true);
+    }
+
+    /**
+     * Compile the given pattern segment into the fastest matcher able to handle it.
+     * @param pattern the pattern segment, must not be a '**' segment
+     * @param variableOffset index, in the {@link UriTemplateVariables} of the whole pattern, of the first URI template
+     * variable of this segment
+     * @param caseSensitive whether the characters must be equal, or equal once their case is folded
+     * @return the segment matcher
+     */
+    static AntPathSegmentMatcher compile(String pattern, int variableOffset, boolean caseSensitive) {
+        if (pattern.indexOf('{') >= 0 || containsLineTerminator(pattern, 0, pattern.length())
+                || (!caseSensitive && containsSurrogate(pattern))) {
+            // supplementary characters are folded by code point, which only the regular expression does
+            return new RegexSegmentMatcher(pattern, variableOffset, caseSensitive);
+        }
+        int firstStar = pattern.indexOf('*');
+        boolean hasQuestionMark = pattern.indexOf('?') >= 0;
+        if (firstStar == -1) {
+            return hasQuestionMark ? new QuestionMarkSegmentMatcher(pattern, caseSensitive) : new LiteralSegmentMatcher(
+                    pattern, caseSensitive);
+        }
+        if (hasQuestionMark) {
+            return new RegexSegmentMatcher(pattern, variableOffset, caseSensitive);
+        }
+        int lastStar = pattern.lastIndexOf('*');
+        int length = pattern.length();
+        if (firstStar == lastStar) {
+            if (firstStar == length - 1) {
+                return new PrefixSegmentMatcher(pattern.substring(0, firstStar), caseSensitive);
+            }
+            if (firstStar == 0) {
+                return new SuffixSegmentMatcher(pattern.substring(1), caseSensitive);
+            }
+        } else if (firstStar == 0 && lastStar == length - 1 && pattern.indexOf('*', 1) == lastStar) {
+            return new ContainsSegmentMatcher(pattern.substring(1, lastStar), caseSensitive);
+        }
+        return new RegexSegmentMatcher(pattern, variableOffset, caseSensitive);
+    }
+
+    /**
+     * Test whether the given string matches against the pattern segment.
+     * @param str the string which must be matched against the pattern. Must not be <code>null</code>.
+     * @param uriTemplateVariables holder receiving the URI template variables, can be <code>null</code>.
+     * @return <code>true</code> if the string matches against the pattern, or <code>false</code> otherwise.
+     */
+    final boolean match(String str, UriTemplateVariables uriTemplateVariables) {
+        return match(str, 0, str.length(), uriTemplateVariables);
+    }
+
+    /**
+     * Test whether the range <code>[start, end)</code> of the given sequence matches against the pattern segment.
+     * @param str the sequence holding the string which must be matched. Must not be <code>null</code>.
+     * @param start the index of the first character of the range
+     * @param end the index after the last character of the range
+     * @param uriTemplateVariables holder receiving the URI template variables, can be <code>null</code>.
+     * @return <code>true</code> if the range matches against the pattern, or <code>false</code> otherwise.
+     */
+    abstract boolean match(CharSequence str, int start, int end, UriTemplateVariables uriTemplateVariables);
+
+    /** Return the names of the URI template variables of the segment, in declaration order. */
+    List<String> getVariableNames() {
+        return Collections.emptyList();
+    }
+
+    /** Return whether the given character is a line terminator, which the regex '.' does not match. */
+    static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    static boolean containsLineTerminator(CharSequence str, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (isLineTerminator(str.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean containsSurrogate(String str) {
+        for (int i = 0; i < str.length(); i++) {
+            if (Character.isSurrogate(str.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean regionMatches(CharSequence str, int offset, String literal, boolean caseSensitive) {
+        int length = literal.length();
+        for (int i = 0; i < length; i++) {
+            if (!charEquals(str.charAt(offset + i), literal.charAt(i), caseSensitive)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean charEquals(char c1, char c2, boolean caseSensitive) {
+        return c1 == c2 || (!caseSensitive && foldCase(c1) == foldCase(c2));
+    }
+
+    /**
+     * Return the case-folded form of the given character, as compared by {@link String#equalsIgnoreCase(String)} and
+     * by the {@link java.util.regex.Pattern#UNICODE_CASE} regular expressions.
+     */
+    static char foldCase(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Return the case-folded form of the given string: two strings are equal ignoring case if their folded forms are
+     * equal.
+     */
+    static String foldCase(String str) {
+        char[] chars = null;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            char folded = foldCase(c);
+            if (folded != c) {
+                if (chars == null) {
+                    chars = str.toCharArray();
+                }
+                chars[i] = folded;
+            }
+        }
+        return chars != null ? new String(chars) : str;
+    }
+
+    /**
+     * Segment without wildcard.
+     */
+    static final class LiteralSegmentMatcher extends AntPathSegmentMatcher {
+
+        private final String literal;
+
+        private final boolean caseSensitive;
+
+        LiteralSegmentMatcher(String literal, boolean caseSensitive) {
+            this.literal = literal;
+            this.caseSensitive = caseSensitive;
+        }
+
+        @Override
+        boolean match(CharSequence str, int start, int end, UriTemplateVariables uriTemplateVariables) {
+            return end - start == literal.length() && regionMatches(str, start, literal, caseSensitive);
+        }
+    }
+
+    /**
+     * Segment of the form <code>prefix*</code>, including the single '*' segment.
+     */
+    static final class PrefixSegmentMatcher extends AntPathSegmentMatcher {
+
+        private final String prefix;
+
+        private final boolean caseSensitive;
+
+        PrefixSegmentMatcher(String prefix, boolean caseSensitive) {
+            this.prefix = prefix;
+            this.caseSensitive = caseSensitive;
+        }
+
+        @Override
+        boolean match(CharSequence str, int start, int end, UriTemplateVariables uriTemplateVariables) {
+            int length = prefix.length();
+            return end - start >= length && regionMatches(str, start, prefix, caseSensitive)
+                    && !containsLineTerminator(str, start + length, end);
+        }
+    }
+
+    /**
+     * Segment of the form <code>*suffix</code>.
+     */
+    static final class SuffixSegmentMatcher extends AntPathSegmentMatcher {
+
+        private final String suffix;
+
+        private final boolean caseSensitive;
+
+        SuffixSegmentMatcher(String suffix, boolean caseSensitive) {
+            this.suffix = suffix;
+            this.caseSensitive = caseSensitive;
+        }
+
+        @Override
+        boolean match(CharSequence str, int start, int end, UriTemplateVariables uriTemplateVariables) {
+            int offset = end - suffix.length();
+            return offset >= start && regionMatches(str, offset, suffix, caseSensitive)
+                    && !containsLineTerminator(str, start, offset);
+        }
+    }
+
+    /**
+     * Segment of the form <code>*contains*</code>.
+     */
+    static final class ContainsSegmentMatcher extends AntPathSegmentMatcher {
+
+        private final String infix;
+
+        private final boolean caseSensitive;
+
+        ContainsSegmentMatcher(String infix, boolean caseSensitive) {
+            this.infix = infix;
+            this.caseSensitive = caseSensitive;
+        }
+
+        @Override
+        boolean match(CharSequence str, int start, int end, UriTemplateVariables uriTemplateVariables) {
+            // the infix holds no line terminator, so the whole range must be free of them
+            if (containsLineTerminator(str, start, end)) {
+                return false;
+            }
+            int last = end - infix.length();
+            for (int offset = start; offset <= last; offset++) {
+                if (regionMatches(str, offset, infix, caseSensitive)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Segment using '?' as only wildcard.
+     */
+    static final class QuestionMarkSegmentMatcher extends AntPathSegmentMatcher {
+
+        private final String pattern;
+
+        private final boolean caseSensitive;
+
+        QuestionMarkSegmentMatcher(String pattern, boolean caseSensitive) {
+            this.pattern = pattern;
+            this.caseSensitive = caseSensitive;
+        }
+
+        @Override
+        boolean match(CharSequence str, int start, int end, UriTemplateVariables uriTemplateVariables) {
+            int length = pattern.length();
+            int index = start;
+            for (int i = 0; i < length; i++) {
+                if (index == end) {
+                    return false;
+                }
+                char c = pattern.charAt(i);
+                char actual = str.charAt(index++);
+                if (c == '?') {
+                    // '?' matches one code point, as the regex '.' does
+                    if (isLineTerminator(actual)) {
+                        return false;
+                    }
+                    if (Character.isHighSurrogate(actual) && index < end
+                            && Character.isLowSurrogate(str.charAt(index))) {
+                        index++;
+                    }
+                } else if (!charEquals(actual, c, caseSensitive)) {
+                    return false;
+                }
+            }
+            return index == end;
+        }
+    }
+
+    /**
+     * Any other segment, matched with a regular expression.
+     */
+    static final class RegexSegmentMatcher extends AntPathSegmentMatcher {
+
+        private final AntPathStringMatcher matcher;
+
+        private final int variableOffset;
+
+        RegexSegmentMatcher(String pattern, int variableOffset, boolean caseSensitive) {
+            this.matcher = new AntPathStringMatcher(pattern, caseSensitive);
+            this.variableOffset = variableOffset;
+        }
+
+        @Override
+        boolean match(CharSequence str, int start, int end, UriTemplateVariables uriTemplateVariables) {
+            return matcher.matchStrings(str, start, end, uriTemplateVariables, variableOffset);
+        }
+
+        @Override
+        List<String> getVariableNames() {
+            return matcher.getVariableNames();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package org.cfr.commons.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set of Ant-style patterns tested against a path in a single pass.
+ *
+ * <p>All the patterns are compiled into one automaton over path segments, in the manner of {@link AntPathAutomaton}:
+ * each pattern segment is a position, the active positions of all the patterns are advanced together for each segment
+ * of the path, and a pattern segment appearing in several patterns is tested once per path segment. Before the pass,
+ * the patterns which cannot match the number of segments of the path are discarded. The result is the same as calling
+ * {@link AntPathMatcher#match(String, String)} for each pattern, with the path separator, the case sensitivity and
+ * the Unicode normalization the matcher had when the set was created.
+ *
+ * <p>Typical use is an include or exclude list:
+ *
+ * <pre>
+ * AntPathSet excludes = new AntPathSet(Arrays.asList("**&#47;.svn/**", "**&#47;*.bak", "**&#47;Thumbs.db"));
+ * if (!excludes.matchesAny(entryName)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>Instances are immutable and thread-safe.
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+public class AntPathSet {
+
+    private static final int WORD_SHIFT = 6;
+
+    private static final String WILDCARD = "*";
+
+    private final List<String> patterns;
+
+    private final String pathSeparator;
+
+    private final boolean normalizeUnicode;
+
+    /** Position of the first segment of each pattern; the accepting position of a pattern follows its last segment. */
+    private final int[] offsets;
+
+    private final int[] sizes;
+
+    /** Number of non-'**' segments of each pattern, the minimum number of path segments a pattern can match. */
+    private final int[] minSegments;
+
+    private final boolean[] hasDoubleWildcard;
+
+    private final boolean[] absolute;
+
+    private final boolean[] trailingSeparator;
+
+    private final boolean[] trailingWildcard;
+
+    private final long[] doubleWildcards;
+
+    private final long[] segmentPositions;
+
+    /** Segment id of each position, -1 for '**' and accepting positions. */
+    private final int[] positionSegments;
+
+    /** Positions of each distinct segment. */
+    private final long[][] segmentMasks;
+
+    private final AntPathSegmentMatcher[] segmentMatchers;
+
+    private final long[] initialState;
+
+    /**
+     * Create a set of patterns using a default {@link AntPathMatcher}.
+     * @param patterns the Ant-style patterns.
+     */
+    public AntPathSet(Collection<String> patterns) {
+        this(new AntPathMatcher(), patterns);
+    }
+
+    /**
+     * Create a set of patterns.
+     * @param pathMatcher the matcher used to parse the patterns, whose path separator is used.
+     * @param patterns the Ant-style patterns.
+     */
+    public AntPathSet(AntPathMatcher pathMatcher, Collection<String> patterns) {
+        Assert.notNull(pathMatcher, "pathMatcher is required");
+        Assert.notNull(patterns, "patterns is required");
+        this.patterns = Collections.unmodifiableList(new ArrayList<String>(patterns));
+        this.pathSeparator = pathMatcher.getPathSeparator();
+        this.normalizeUnicode = pathMatcher.isNormalizeUnicode();
+
+        int count = this.patterns.size();
+        this.offsets = new int[count];
+        this.sizes = new int[count];
+        this.minSegments = new int[count];
+        this.hasDoubleWildcard = new boolean[count];
+        this.absolute = new boolean[count];
+        this.trailingSeparator = new boolean[count];
+        this.trailingWildcard = new boolean[count];
+
+        AntPathPattern[] compiledPatterns = new AntPathPattern[count];
+        int positionCount = 0;
+        for (int k = 0; k < count; k++) {
+            String pattern = Assert.notNull(this.patterns.get(k), "pattern is required");
+            AntPathPattern compiledPattern = pathMatcher.getCompiledPattern(pattern);
+            compiledPatterns[k] = compiledPattern;
+            offsets[k] = positionCount;
+            sizes[k] = compiledPattern.size();
+            absolute[k] = pattern.startsWith(pathSeparator);
+            trailingSeparator[k] = pattern.endsWith(pathSeparator);
+            trailingWildcard[k] = sizes[k] > 0 && WILDCARD.equals(compiledPattern.getToken(sizes[k] - 1));
+            for (int i = 0; i < sizes[k]; i++) {
+                if (compiledPattern.isDoubleWildcard(i)) {
+                    hasDoubleWildcard[k] = true;
+                } else {
+                    minSegments[k]++;
+                }
+            }
+            positionCount += sizes[k] + 1;
+        }
+
+        int words = (positionCount + 63) >>> WORD_SHIFT;
+        this.doubleWildcards = new long[words];
+        this.segmentPositions = new long[words];
+        this.positionSegments = new int[positionCount];
+        Map<String, Integer> segmentIds = new HashMap<String, Integer>();
+        List<long[]> masks = new ArrayList<long[]>();
+        List<AntPathSegmentMatcher> matchers = new ArrayList<AntPathSegmentMatcher>();
+        for (int k = 0; k < count; k++) {
+            for (int i = 0; i <= sizes[k]; i++) {
+                int position = offsets[k] + i;
+                positionSegments[position] = -1;
+                if (i == sizes[k]) {
+                    continue;
+                }
+                if (compiledPatterns[k].isDoubleWildcard(i)) {
+                    set(doubleWildcards, position);
+                    continue;
+                }
+                String token = compiledPatterns[k].getToken(i);
+                Integer segmentId = segmentIds.get(token);
+                if (segmentId == null) {
+                    segmentId = matchers.size();
+                    segmentIds.put(token, segmentId);
+                    masks.add(new long[words]);
+                    matchers.add(compiledPatterns[k].getMatcher(i));
+                }
+                positionSegments[position] = segmentId;
+                set(masks.get(segmentId), position);
+                set(segmentPositions, position);
+            }
+        }
+        this.segmentMasks = masks.toArray(new long[masks.size()][]);
+        this.segmentMatchers = matchers.toArray(new AntPathSegmentMatcher[matchers.size()]);
+
+        this.initialState = new long[words];
+        for (int k = 0; k < count; k++) {
+            set(initialState, offsets[k]);
+        }
+        closure(initialState);
+    }
+
+    /**
+     * @return the patterns of the set, in construction order.
+     */
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * @return the number of patterns.
+     */
+    public int size() {
+        return patterns.size();
+    }
+
+    /**
+     * Match the given path against all the patterns.
+     * @param path the path to test.
+     * @return the indexes of the matching patterns.
+     */
+    public BitSet match(String path) {
+        Assert.notNull(path, "path is required");
+        BitSet matches = new BitSet(patterns.size());
+        if (patterns.isEmpty()) {
+            return matches;
+        }
+        if (normalizeUnicode) {
+            path = AntPathMatcher.normalize(path);
+        }
+        AntPathMatcher.PathSegments pathDirs = AntPathMatcher.PathSegments.tokenize(path, pathSeparator);
+        int segmentCount = pathDirs.size();
+        boolean pathAbsolute = path.startsWith(pathSeparator);
+        boolean pathTrailingSeparator = path.endsWith(pathSeparator);
+
+        // prefilter: the patterns with another leading separator or another number of segments cannot match
+        long[] state = initialState.clone();
+        for (int k = 0; k < patterns.size(); k++) {
+            if (absolute[k] != pathAbsolute || !canMatch(k, segmentCount, pathTrailingSeparator)) {
+                clear(state, offsets[k], offsets[k] + sizes[k] + 1);
+            }
+        }
+
+        long[] candidates = new long[state.length];
+        long[] advanced = new long[state.length];
+        for (int s = 0; s < segmentCount && !isEmpty(state); s++) {
+            int start = pathDirs.getStart(s);
+            int end = pathDirs.getEnd(s);
+            for (int w = 0; w < state.length; w++) {
+                candidates[w] = state[w] & segmentPositions[w];
+                advanced[w] = 0L;
+            }
+            for (int w = 0; w < candidates.length; w++) {
+                while (candidates[w] != 0L) {
+                    int position = (w << WORD_SHIFT) + Long.numberOfTrailingZeros(candidates[w]);
+                    int segmentId = positionSegments[position];
+                    long[] mask = segmentMasks[segmentId];
+                    boolean matched = segmentMatchers[segmentId].match(pathDirs.getPath(), start, end, null);
+                    // the same segment of other patterns shares the result of the test
+                    for (int v = w; v < candidates.length; v++) {
+                        long positions = candidates[v] & mask[v];
+                        candidates[v] &= ~positions;
+                        if (matched) {
+                            advanced[v] |= positions;
+                        }
+                    }
+                }
+            }
+            // '**' positions stay active, matched positions advance to the next one
+            long carry = 0L;
+            for (int w = 0; w < state.length; w++) {
+                long next = (state[w] & doubleWildcards[w]) | (advanced[w] << 1) | carry;
+                carry = advanced[w] >>> 63;
+                state[w] = next;
+            }
+            closure(state);
+        }
+
+        for (int k = 0; k < patterns.size(); k++) {
+            if (isMatch(k, state, pathTrailingSeparator)) {
+                matches.set(k);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Return the patterns matching the given path.
+     * @param path the path to test.
+     * @return the matching patterns, in construction order.
+     */
+    public List<String> getMatchingPatterns(String path) {
+        BitSet matches = match(path);
+        List<String> matchingPatterns = new ArrayList<String>(matches.cardinality());
+        for (int k = matches.nextSetBit(0); k >= 0; k = matches.nextSetBit(k + 1)) {
+            matchingPatterns.add(patterns.get(k));
+        }
+        return matchingPatterns;
+    }
+
+    /**
+     * Test whether at least one pattern matches the given path.
+     * @param path the path to test.
+     * @return <code>true</code> if a pattern matches the path.
+     */
+    public boolean matchesAny(String path) {
+        return !match(path).isEmpty();
+    }
+
+    private boolean canMatch(int k, int segmentCount, boolean pathTrailingSeparator) {
+        if (hasDoubleWildcard[k]) {
+            return minSegments[k] <= segmentCount;
+        }
+        // a trailing '*' also matches a path ending with the separator in place of its last segment
+        return sizes[k] == segmentCount || (trailingWildcard[k] && pathTrailingSeparator && sizes[k] == segmentCount + 1);
+    }
+
+    /**
+     * Apply the rules of {@link AntPathMatcher#match(String, String)} on the final state of the pattern
+     * <code>k</code>.
+     */
+    private boolean isMatch(int k, long[] state, boolean pathTrailingSeparator) {
+        int accepting = offsets[k] + sizes[k];
+        if (hasDoubleWildcard[k]) {
+            // the trailing separator is not significant for patterns having a '**' segment
+            return isSet(state, accepting);
+        }
+        if (isSet(state, accepting)) {
+            return trailingSeparator[k] == pathTrailingSeparator;
+        }
+        return trailingWildcard[k] && pathTrailingSeparator && isSet(state, accepting - 1);
+    }
+
+    /** Add the positions following the active '**' positions, which match zero segments. */
+    private void closure(long[] state) {
+        boolean changed;
+        do {
+            changed = false;
+            long carry = 0L;
+            for (int w = 0; w < state.length; w++) {
+                long skipped = state[w] & doubleWildcards[w];
+                long next = state[w] | (skipped << 1) | carry;
+                carry = skipped >>> 63;
+                if (next != state[w]) {
+                    state[w] = next;
+                    changed = true;
+                }
+            }
+        } while (changed);
+    }
+
+    private static void set(long[] bits, int position) {
+        bits[position >>> WORD_SHIFT] |= 1L << position;
+    }
+
+    private static boolean isSet(long[] bits, int position) {
+        return (bits[position >>> WORD_SHIFT] & (1L << position)) != 0L;
+    }
+
+    private static void clear(long[] bits, int from, int to) {
+        for (int position = from; position < to; position++) {
+            bits[position >>> WORD_SHIFT] &= ~(1L << position);
+        }
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long word : bits) {
+            if (word != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
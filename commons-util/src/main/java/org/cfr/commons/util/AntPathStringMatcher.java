@@ -16,7 +16,8 @@
 
 package org.cfr.commons.util;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -40,20 +41,26 @@ class AntPathStringMatcher {
 
     private final Pattern pattern;
 
-    private String str;
+    private final List<String> variableNames = new ArrayList<String>();
 
-    private final List<String> variableNames = new LinkedList<String>();
-
-    private final Map<String, String> uriTemplateVariables;
+    /**
+     * Construct a new instance of the <code>AntPatchStringMatcher</code>.
+     * <p>The pattern is compiled once, the instance is immutable and can be shared between threads.
+     */
+    AntPathStringMatcher(String pattern) {
+        this(pattern, true);
+    }
 
-    /** Construct a new instance of the <code>AntPatchStringMatcher</code>. */
-    AntPathStringMatcher(String pattern, String str, Map<String, String> uriTemplateVariables) {
-        this.str = str;
-        this.uriTemplateVariables = uriTemplateVariables;
-        this.pattern = createPattern(pattern);
+    /**
+     * Construct a new instance of the <code>AntPatchStringMatcher</code>.
+     * @param caseSensitive <code>false</code> to compile the regular expression, including the regular expressions
+     * of the URI template variables, with {@link Pattern#CASE_INSENSITIVE} and {@link Pattern#UNICODE_CASE}
+     */
+    AntPathStringMatcher(String pattern, boolean caseSensitive) {
+        this.pattern = createPattern(pattern, caseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
     }
 
-    private Pattern createPattern(String pattern) {
+    private Pattern createPattern(String pattern, int flags) {
         StringBuilder patternBuilder = new StringBuilder();
         Matcher m = GLOB_PATTERN.matcher(pattern);
         int end = 0;
@@ -81,7 +88,7 @@ class AntPathStringMatcher {
             end = m.end();
         }
         patternBuilder.append(quote(pattern, end, pattern.length()));
-        return Pattern.compile(patternBuilder.toString());
+        return Pattern.compile(patternBuilder.toString(), flags);
     }
 
     private String quote(String s, int start, int end) {
@@ -92,14 +99,21 @@ class AntPathStringMatcher {
     }
 
     /**
-     * Main entry point.
+     * Test whether the whole given string matches against the pattern. The matchers use
+     * {@link #matchStrings(CharSequence, int, int, UriTemplateVariables, int)}; this form is kept for compatibility,
+     * as the reference the tests and benchmarks compare the compiled segment matchers with.
      *
+     * @param str string which must be matched against the pattern. Must not be <code>null</code>.
+     * @param uriTemplateVariables map receiving the URI template variables, can be <code>null</code>.
      * @return <code>true</code> if the string matches against the pattern, or <code>false</code> otherwise.
+     * @throws IllegalArgumentException if variables are captured and the regular expression of a URI template
+     * variable holds capturing groups.
      */
-    public boolean matchStrings() {
+    public boolean matchStrings(String str, Map<String, String> uriTemplateVariables) {
         Matcher matcher = pattern.matcher(str);
         if (matcher.matches()) {
             if (uriTemplateVariables != null) {
+                checkGroupCount(matcher);
                 for (int i = 1; i <= matcher.groupCount(); i++) {
                     String name = this.variableNames.get(i - 1);
                     String value = matcher.group(i);
@@ -112,4 +126,50 @@ class AntPathStringMatcher {
         }
     }
 
+    /**
+     * Test whether the range <code>[start, end)</code> of the given sequence matches against the pattern.
+     *
+     * @param str sequence holding the string which must be matched. Must not be <code>null</code>.
+     * @param start index of the first character of the range.
+     * @param end index after the last character of the range.
+     * @param uriTemplateVariables holder receiving the offsets of the URI template variables, can be <code>null</code>.
+     * @param variableOffset index in the holder of the first variable of this pattern.
+     * @return <code>true</code> if the range matches against the pattern, or <code>false</code> otherwise.
+     * @throws IllegalArgumentException if variables are captured and the regular expression of a URI template
+     * variable holds capturing groups.
+     */
+    public boolean matchStrings(CharSequence str, int start, int end, UriTemplateVariables uriTemplateVariables,
+        int variableOffset) {
+        Matcher matcher = pattern.matcher(str).region(start, end);
+        if (matcher.matches()) {
+            if (uriTemplateVariables != null) {
+                checkGroupCount(matcher);
+                for (int i = 1; i <= matcher.groupCount(); i++) {
+                    uriTemplateVariables.capture(variableOffset + i - 1, matcher.start(i), matcher.end(i));
+                }
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Check that each capturing group of the pattern is a URI template variable, before capturing the variables.
+     * Matching alone does not need it, so that capturing groups in a URI template regex only fail the extraction.
+     */
+    private void checkGroupCount(Matcher matcher) {
+        if (matcher.groupCount() != this.variableNames.size()) {
+            throw new IllegalArgumentException("The number of capturing groups in the pattern segment "
+                    + pattern.pattern() + " does not match the number of URI template variables it defines, which"
+                    + " can occur if capturing groups are used in a URI template regex. Use non-capturing groups"
+                    + " instead.");
+        }
+    }
+
+    /** Return the names of the URI template variables, in declaration order. */
+    public List<String> getVariableNames() {
+        return Collections.unmodifiableList(variableNames);
+    }
+
 }
\ No newline at end of file
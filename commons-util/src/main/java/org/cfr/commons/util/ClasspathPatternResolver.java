@@ -0,0 +1,264 @@
+package org.cfr.commons.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves Ant-style location patterns, e.g. <code>classpath*:META-INF/**&#47;*.xml</code>, to the URLs of the
+ * matching classpath resources.
+ *
+ * <p>The location is split into a root directory without wildcard, e.g. <code>META-INF/</code>, and a sub-pattern
+ * matched against the paths relative to it. Only files are resolved, and as with {@link DirectoryScanner} a
+ * sub-pattern ending with '/' selects the whole directory, so a jar root and a file system root holding the same tree
+ * resolve the same relative paths. With the <code>classpath*:</code> prefix all the roots found by the class
+ * loader are searched, with <code>classpath:</code> or no prefix only the first one. A location without wildcard is
+ * resolved by the class loader directly.
+ *
+ * <p>The roots in the file system are scanned with a {@link DirectoryScanner} on each call. The entries of a jar file
+ * are read once into a sorted in-memory index, kept until the jar file is modified or {@link #clearCache()} is called,
+ * and the later lookups in the jar are answered from the index without opening it again. As the root directory is
+ * needed to find the jar files, a pattern starting with a wildcard only finds the resources in the file system.
+ *
+ * <p>A resolver is thread-safe and is meant to be shared.
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+public class ClasspathPatternResolver {
+
+    /** Prefix of the locations searched in all the classpath roots. */
+    public static final String CLASSPATH_ALL_URL_PREFIX = "classpath*:";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClasspathPatternResolver.class);
+
+    private final ClassLoader classLoader;
+
+    private final AntPathMatcher pathMatcher;
+
+    /** Entry indexes by jar file URL. */
+    private final ConcurrentMap<String, JarIndex> jarIndexes = new ConcurrentHashMap<String, JarIndex>();
+
+    /**
+     * Create a resolver using the default class loader and a default {@link AntPathMatcher}.
+     * @see ClassUtils#getDefaultClassLoader()
+     */
+    public ClasspathPatternResolver() {
+        this(ClassUtils.getDefaultClassLoader(), new AntPathMatcher());
+    }
+
+    /**
+     * Create a resolver.
+     * @param classLoader the class loader finding the classpath roots.
+     * @param pathMatcher the matcher of the location patterns, which must use '/' as path separator.
+     */
+    public ClasspathPatternResolver(ClassLoader classLoader, AntPathMatcher pathMatcher) {
+        Assert.notNull(classLoader, "classLoader is required");
+        Assert.notNull(pathMatcher, "pathMatcher is required");
+        Assert.isTrue(AntPathMatcher.DEFAULT_PATH_SEPARATOR.equals(pathMatcher.getPathSeparator()),
+            "pathMatcher must use '/' as path separator");
+        this.classLoader = classLoader;
+        this.pathMatcher = pathMatcher;
+    }
+
+    /**
+     * Resolve the given location pattern.
+     * @param locationPattern the location, prefixed by <code>classpath*:</code> to search all the classpath roots.
+     * @return the URLs of the matching resources, without duplicates, in classpath order.
+     * @throws IOException if a root cannot be read.
+     */
+    public List<URL> getResources(String locationPattern) throws IOException {
+        Assert.notNull(locationPattern, "locationPattern is required");
+        boolean allRoots = locationPattern.startsWith(CLASSPATH_ALL_URL_PREFIX);
+        String location;
+        if (allRoots) {
+            location = locationPattern.substring(CLASSPATH_ALL_URL_PREFIX.length());
+        } else if (locationPattern.startsWith(ResourceUtils.CLASSPATH_URL_PREFIX)) {
+            location = locationPattern.substring(ResourceUtils.CLASSPATH_URL_PREFIX.length());
+        } else {
+            location = locationPattern;
+        }
+        // class loader resource names have no leading slash
+        while (location.startsWith(AntPathMatcher.DEFAULT_PATH_SEPARATOR)) {
+            location = location.substring(1);
+        }
+        Map<String, URL> resources = new LinkedHashMap<String, URL>();
+        if (!pathMatcher.isPattern(location)) {
+            for (URL url : findRoots(location, allRoots)) {
+                resources.put(url.toExternalForm(), url);
+            }
+            return new ArrayList<URL>(resources.values());
+        }
+        String rootDir = determineRootDir(location);
+        String subPattern = DirectoryScanner.normalizePattern(location.substring(rootDir.length()));
+        PathPattern pattern = pathMatcher.compile(subPattern);
+        for (URL rootUrl : findRoots(rootDir, allRoots)) {
+            List<URL> found;
+            if (ResourceUtils.isJarURL(rootUrl)) {
+                found = findJarResources(rootUrl, pattern);
+            } else if (ResourceUtils.URL_PROTOCOL_FILE.equals(rootUrl.getProtocol())) {
+                found = findFileResources(rootUrl, subPattern);
+            } else {
+                LOGGER.debug("Cannot search for matching resources in {}: unsupported protocol", rootUrl);
+                continue;
+            }
+            for (URL url : found) {
+                resources.put(url.toExternalForm(), url);
+            }
+        }
+        return new ArrayList<URL>(resources.values());
+    }
+
+    /**
+     * Discard the jar file indexes.
+     */
+    public void clearCache() {
+        jarIndexes.clear();
+    }
+
+    /**
+     * Return the part of the location before the first segment holding a wildcard, ending with '/' unless empty.
+     */
+    private String determineRootDir(String location) {
+        int rootDirEnd = location.length();
+        while (rootDirEnd > 0 && pathMatcher.isPattern(location.substring(0, rootDirEnd))) {
+            rootDirEnd = location.lastIndexOf('/', rootDirEnd - 2) + 1;
+        }
+        return location.substring(0, rootDirEnd);
+    }
+
+    private List<URL> findRoots(String name, boolean allRoots) throws IOException {
+        if (!allRoots) {
+            URL url = classLoader.getResource(name);
+            return url != null ? Collections.singletonList(url) : Collections.<URL> emptyList();
+        }
+        return Collections.list(classLoader.getResources(name));
+    }
+
+    private List<URL> findJarResources(URL rootUrl, PathPattern pattern) throws IOException {
+        URL jarFileUrl = ResourceUtils.extractJarFileURL(rootUrl);
+        String urlFile = rootUrl.getFile();
+        int separatorIndex = urlFile.indexOf(ResourceUtils.JAR_URL_SEPARATOR);
+        String rootEntryPath = separatorIndex != -1 ? urlFile.substring(separatorIndex
+                + ResourceUtils.JAR_URL_SEPARATOR.length()) : "";
+        if (rootEntryPath.length() > 0 && !rootEntryPath.endsWith("/")) {
+            rootEntryPath += "/";
+        }
+        List<URL> resources = new ArrayList<URL>();
+        for (String entry : getJarIndex(rootUrl, jarFileUrl).getEntries(rootEntryPath)) {
+            if (entry.endsWith("/")) {
+                // directory entry, the scanned file system roots select files only
+                continue;
+            }
+            String relativePath = entry.substring(rootEntryPath.length());
+            if (pattern.match(relativePath)) {
+                resources.add(new URL(rootUrl, relativePath));
+            }
+        }
+        return resources;
+    }
+
+    /**
+     * Return the entry index of the given jar file, reading the jar file if it is not indexed yet or has been modified.
+     * @param rootUrl the URL of a directory in the jar file.
+     * @param jarFileUrl the URL of the jar file.
+     */
+    JarIndex getJarIndex(URL rootUrl, URL jarFileUrl) throws IOException {
+        String key = jarFileUrl.toExternalForm();
+        File file = ResourceUtils.URL_PROTOCOL_FILE.equals(jarFileUrl.getProtocol()) ? ResourceUtils
+                .getFile(jarFileUrl) : null;
+        long lastModified = file != null ? file.lastModified() : 0;
+        JarIndex index = jarIndexes.get(key);
+        if (index == null || index.lastModified != lastModified) {
+            // concurrent lookups may index the same jar file, the last index wins
+            index = new JarIndex(readEntries(rootUrl, file), lastModified);
+            jarIndexes.put(key, index);
+        }
+        return index;
+    }
+
+    private static String[] readEntries(URL rootUrl, File file) throws IOException {
+        JarFile jarFile;
+        if (file != null) {
+            jarFile = new JarFile(file);
+        } else {
+            URLConnection connection = rootUrl.openConnection();
+            Assert.state(connection instanceof JarURLConnection, "Not a jar URL: " + rootUrl);
+            // do not close a jar file shared by the class loader
+            connection.setUseCaches(false);
+            jarFile = ((JarURLConnection) connection).getJarFile();
+        }
+        try {
+            List<String> entries = new ArrayList<String>();
+            for (Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements();) {
+                String name = e.nextElement().getName();
+                entries.add(name.startsWith("/") ? name.substring(1) : name);
+            }
+            String[] sorted = entries.toArray(new String[entries.size()]);
+            Arrays.sort(sorted);
+            return sorted;
+        } finally {
+            jarFile.close();
+        }
+    }
+
+    private List<URL> findFileResources(URL rootUrl, String subPattern) throws IOException {
+        File rootDir = ResourceUtils.getFile(rootUrl);
+        if (!rootDir.isDirectory()) {
+            return Collections.emptyList();
+        }
+        DirectoryScanner scanner = new DirectoryScanner(rootDir, pathMatcher);
+        scanner.setIncludes(subPattern);
+        List<URL> resources = new ArrayList<URL>();
+        for (String path : scanner.scan()) {
+            resources.add(new File(rootDir, path).toURI().toURL());
+        }
+        return resources;
+    }
+
+    /**
+     * Sorted entry names of a jar file.
+     */
+    static final class JarIndex {
+
+        private final String[] entries;
+
+        private final long lastModified;
+
+        JarIndex(String[] entries, long lastModified) {
+            this.entries = entries;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Return the entries under the given directory, found by binary search.
+         */
+        List<String> getEntries(String directory) {
+            int from = Arrays.binarySearch(entries, directory);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            int to = from;
+            while (to < entries.length && entries[to].startsWith(directory)) {
+                to++;
+            }
+            return Arrays.asList(entries).subList(from, to);
+        }
+    }
+}
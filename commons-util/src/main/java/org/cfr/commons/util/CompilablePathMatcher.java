@@ -0,0 +1,19 @@
+package org.cfr.commons.util;
+
+/**
+ * {@link PathMatcher} able to parse a pattern once into a {@link PathPattern}, so that callers matching many paths
+ * against the same pattern can hold on to the parsed form.
+ *
+ * @author devacfr
+ * @since 1.1
+ * @see AntPathMatcher
+ */
+public interface CompilablePathMatcher extends PathMatcher {
+
+    /**
+     * Compile the given pattern.
+     * @param pattern the pattern to compile
+     * @return the immutable and thread-safe compiled pattern
+     */
+    PathPattern compile(String pattern);
+}
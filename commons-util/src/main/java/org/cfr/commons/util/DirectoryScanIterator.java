@@ -0,0 +1,130 @@
+package org.cfr.commons.util;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.collect.AbstractIterator;
+
+/**
+ * Iterator over the files selected by a parallel scan, see {@link DirectoryScanner#iterate(ForkJoinPool)}.
+ *
+ * <p>The walking tasks put the selected paths into a bounded queue which the iterator drains: the first paths are
+ * available as soon as they are found, and the walk waits when the queue is full until the caller consumes the
+ * queued paths. The iterator must be either consumed until {@link #hasNext()} returns <code>false</code> or closed,
+ * otherwise the walk stays blocked on the full queue:
+ *
+ * <pre>
+ * DirectoryScanIterator files = scanner.iterate(pool);
+ * try {
+ *     while (files.hasNext()) {
+ *         process(files.next());
+ *     }
+ * } finally {
+ *     files.close();
+ * }
+ * </pre>
+ *
+ * <p>The iterator is meant to be consumed by a single thread. If the walk fails, {@link #hasNext()} throws an
+ * {@link IllegalStateException} caused by the failure once the paths selected before it have been returned.
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+public final class DirectoryScanIterator extends AbstractIterator<String> implements Closeable {
+
+    /** Delay after which a task waiting for room in the queue checks whether the iterator has been closed. */
+    private static final long CLOSE_CHECK_MILLIS = 100;
+
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+    private volatile boolean closed;
+
+    DirectoryScanIterator(int capacity) {
+        this.queue = new ArrayBlockingQueue<Object>(capacity);
+    }
+
+    @Override
+    protected String computeNext() {
+        if (closed) {
+            return endOfData();
+        }
+        Object next;
+        try {
+            next = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("Interrupted while waiting for the directory scan", e);
+        }
+        if (next == END) {
+            Throwable cause = failure.get();
+            if (cause != null) {
+                throw new IllegalStateException("Directory scan failed", cause);
+            }
+            return endOfData();
+        }
+        return (String) next;
+    }
+
+    /**
+     * Stop the scan. The walking tasks stop as soon as they notice it and the iterator returns no more path.
+     */
+    public void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    /** Return whether the walk must stop, because the iterator has been closed or the walk failed. */
+    boolean isStopped() {
+        return closed || failure.get() != null;
+    }
+
+    /**
+     * Queue a selected path, waiting for room in the queue. The wait blocks the worker thread without letting the pool
+     * start a spare thread, so that a slow consumer slows the walk down instead of growing the pool: the consumer is
+     * not a worker of the pool, so it always makes room eventually.
+     * @return <code>false</code> if the walk must stop.
+     */
+    boolean put(String path) throws InterruptedException {
+        while (!isStopped()) {
+            if (queue.offer(path, CLOSE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Record the failure of the walk; the first failure is reported. */
+    void fail(Throwable cause) {
+        failure.compareAndSet(null, cause);
+    }
+
+    /** Mark the end of the walk, after all the walking tasks have completed. */
+    void finish() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (queue.offer(END, CLOSE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            if (closed) {
+                // nobody consumes the queue anymore
+                queue.clear();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
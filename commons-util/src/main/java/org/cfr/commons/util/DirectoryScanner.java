@@ -0,0 +1,408 @@
+package org.cfr.commons.util;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Scans a directory tree for the files matching a set of include and exclude Ant-style patterns, e.g.
+ * <code>**&#47;*.java</code>.
+ *
+ * <p>The patterns are matched against the paths of the files relative to the base directory, using '/' as separator
+ * whatever the platform. A file is selected if it matches at least one include pattern, or if there is no include
+ * pattern, and no exclude pattern. As in Ant, a pattern ending with '/' is a shorthand for the same pattern followed by
+ * <code>**</code>.
+ *
+ * <p>The tree is walked with {@link Files#walkFileTree}, and the directories which cannot hold a selected file are not
+ * entered: a directory is skipped when no include pattern can match the start of its path, see
+ * {@link PathPattern#matchStart(String)}, or when an exclude pattern of the form <code>pattern/**</code> excludes all
+ * its contents.
+ *
+ * <p>{@link #iterate(ForkJoinPool)} walks the tree in parallel on a fork/join pool and returns the selected files
+ * lazily, as the walk finds them.
+ *
+ * <p>A scanner can be reused; it is not thread-safe while being configured.
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+public class DirectoryScanner {
+
+    /** Default maximum number of selected files waiting to be consumed during a parallel scan. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static final String DOUBLE_WILDCARD_SUFFIX = AntPathMatcher.DEFAULT_PATH_SEPARATOR + "**";
+
+    private final Path basedir;
+
+    private final AntPathMatcher pathMatcher;
+
+    private List<String> includes = Collections.emptyList();
+
+    private List<String> excludes = Collections.emptyList();
+
+    private boolean followLinks = false;
+
+    /**
+     * Create a scanner using a default {@link AntPathMatcher}.
+     * @param basedir the directory to scan.
+     */
+    public DirectoryScanner(File basedir) {
+        this(basedir, new AntPathMatcher());
+    }
+
+    /**
+     * Create a scanner.
+     * @param basedir the directory to scan.
+     * @param pathMatcher the matcher compiling the patterns, which must use '/' as path separator.
+     */
+    public DirectoryScanner(File basedir, AntPathMatcher pathMatcher) {
+        Assert.notNull(basedir, "basedir is required");
+        Assert.notNull(pathMatcher, "pathMatcher is required");
+        Assert.isTrue(AntPathMatcher.DEFAULT_PATH_SEPARATOR.equals(pathMatcher.getPathSeparator()),
+            "pathMatcher must use '/' as path separator");
+        this.basedir = basedir.toPath();
+        this.pathMatcher = pathMatcher;
+    }
+
+    /**
+     * Set the include patterns. By default all the files are included.
+     * @param includes the include patterns.
+     */
+    public void setIncludes(String... includes) {
+        this.includes = normalizePatterns(includes);
+    }
+
+    /**
+     * Set the exclude patterns. By default no file is excluded.
+     * @param excludes the exclude patterns.
+     */
+    public void setExcludes(String... excludes) {
+        this.excludes = normalizePatterns(excludes);
+    }
+
+    /**
+     * Specify whether to follow the symbolic links. Default is <code>false</code>.
+     */
+    public void setFollowLinks(boolean followLinks) {
+        this.followLinks = followLinks;
+    }
+
+    /**
+     * Scan the base directory.
+     * @return the paths of the selected files relative to the base directory, using '/' as separator, in the order
+     *         of the walk.
+     * @throws FileNotFoundException if the base directory does not exist.
+     * @throws IOException if the tree cannot be walked.
+     */
+    public List<String> scan() throws IOException {
+        if (!Files.isDirectory(basedir)) {
+            throw new FileNotFoundException("Directory not found " + basedir);
+        }
+        Selector selector = new Selector(pathMatcher, includes, excludes);
+        final List<String> files = new ArrayList<String>();
+        Set<FileVisitOption> options = followLinks ? EnumSet.of(FileVisitOption.FOLLOW_LINKS) : EnumSet
+                .noneOf(FileVisitOption.class);
+        Files.walkFileTree(basedir, options, Integer.MAX_VALUE, new SelectingFileVisitor(basedir, selector) {
+
+            @Override
+            protected void select(String path) {
+                files.add(path);
+            }
+        });
+        return files;
+    }
+
+    /**
+     * Scan the base directory in parallel, using a queue of {@link #DEFAULT_QUEUE_CAPACITY} paths.
+     * @param pool the pool running the walk.
+     * @return the iterator over the selected files.
+     * @throws FileNotFoundException if the base directory does not exist.
+     * @see #iterate(ForkJoinPool, int)
+     */
+    public DirectoryScanIterator iterate(ForkJoinPool pool) throws IOException {
+        return iterate(pool, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Scan the base directory in parallel: each directory is listed by its own task, and the patterns are matched by
+     * the tasks as they find the files. The selected files are returned as they are found, so their order is
+     * unspecified; the walk waits when <code>queueCapacity</code> selected files are waiting to be consumed.
+     * @param pool the pool running the walk.
+     * @param queueCapacity the maximum number of selected files waiting to be consumed.
+     * @return the iterator over the paths of the selected files relative to the base directory, using '/' as
+     *         separator, which must be consumed or closed.
+     * @throws FileNotFoundException if the base directory does not exist.
+     * @see DirectoryScanIterator
+     */
+    public DirectoryScanIterator iterate(ForkJoinPool pool, int queueCapacity) throws IOException {
+        Assert.notNull(pool, "pool is required");
+        Assert.isTrue(queueCapacity > 0, "queueCapacity must be positive");
+        if (!Files.isDirectory(basedir)) {
+            throw new FileNotFoundException("Directory not found " + basedir);
+        }
+        BasicFileAttributes attrs = Files.readAttributes(basedir, BasicFileAttributes.class);
+        DirectoryScanIterator iterator = new DirectoryScanIterator(queueCapacity);
+        Walk walk = new Walk(basedir, new Selector(pathMatcher, includes, excludes), followLinks, iterator);
+        pool.execute(new DirectoryTask(walk, basedir, attrs.fileKey(), null));
+        return iterator;
+    }
+
+    private static List<String> normalizePatterns(String[] patterns) {
+        Assert.notNull(patterns, "patterns is required");
+        List<String> normalized = new ArrayList<String>(patterns.length);
+        for (String pattern : patterns) {
+            Assert.notNull(pattern, "pattern is required");
+            normalized.add(normalizePattern(pattern));
+        }
+        return normalized;
+    }
+
+    /**
+     * Return the given pattern, completed by '**' if it ends with '/' so that it selects the whole directory.
+     */
+    static String normalizePattern(String pattern) {
+        return pattern.endsWith(AntPathMatcher.DEFAULT_PATH_SEPARATOR) ? pattern + "**" : pattern;
+    }
+
+    /**
+     * Relative path of the given file, using '/' as separator.
+     */
+    static String toRelativePath(Path basedir, Path file) {
+        String path = basedir.relativize(file).toString();
+        return File.separatorChar == '/' ? path : path.replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Compiled include and exclude patterns.
+     */
+    static final class Selector {
+
+        private final AntPathSet includes;
+
+        private final AntPathSet excludes;
+
+        private final List<PathPattern> includePatterns = new ArrayList<PathPattern>();
+
+        /** Directory part of the exclude patterns of the form <code>pattern/**</code>. */
+        private final List<PathPattern> excludedContents = new ArrayList<PathPattern>();
+
+        Selector(AntPathMatcher pathMatcher, List<String> includes, List<String> excludes) {
+            this.includes = includes.isEmpty() ? null : new AntPathSet(pathMatcher, includes);
+            this.excludes = new AntPathSet(pathMatcher, excludes);
+            for (String include : includes) {
+                includePatterns.add(pathMatcher.compile(include));
+            }
+            for (String exclude : excludes) {
+                if (exclude.endsWith(DOUBLE_WILDCARD_SUFFIX) && exclude.length() > DOUBLE_WILDCARD_SUFFIX.length()) {
+                    excludedContents.add(pathMatcher.compile(exclude.substring(0, exclude.length()
+                            - DOUBLE_WILDCARD_SUFFIX.length())));
+                }
+            }
+        }
+
+        /**
+         * Return whether the directory of the given relative path may hold selected files.
+         */
+        boolean isTraversed(String directory) {
+            for (PathPattern excludedContent : excludedContents) {
+                if (excludedContent.match(directory)) {
+                    return false;
+                }
+            }
+            if (includes == null) {
+                return true;
+            }
+            for (PathPattern include : includePatterns) {
+                if (include.matchStart(directory)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Return whether the file of the given relative path is selected.
+         */
+        boolean isSelected(String file) {
+            return (includes == null || includes.matchesAny(file)) && !excludes.matchesAny(file);
+        }
+    }
+
+    /**
+     * File visitor skipping the directories which cannot hold selected files.
+     */
+    abstract static class SelectingFileVisitor extends SimpleFileVisitor<Path> {
+
+        private final Path basedir;
+
+        private final Selector selector;
+
+        SelectingFileVisitor(Path basedir, Selector selector) {
+            this.basedir = basedir;
+            this.selector = selector;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+            if (dir.equals(basedir) || selector.isTraversed(toRelativePath(basedir, dir))) {
+                return FileVisitResult.CONTINUE;
+            }
+            return FileVisitResult.SKIP_SUBTREE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            String path = toRelativePath(basedir, file);
+            if (selector.isSelected(path)) {
+                select(path);
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        /** Called for each selected file. */
+        protected abstract void select(String path);
+    }
+
+    /**
+     * State shared by the tasks of a parallel scan.
+     */
+    private static final class Walk {
+
+        private final Path basedir;
+
+        private final Selector selector;
+
+        private final boolean followLinks;
+
+        private final DirectoryScanIterator iterator;
+
+        Walk(Path basedir, Selector selector, boolean followLinks, DirectoryScanIterator iterator) {
+            this.basedir = basedir;
+            this.selector = selector;
+            this.followLinks = followLinks;
+            this.iterator = iterator;
+        }
+
+        /**
+         * Attributes of the given entry, of the link itself if it is broken, as {@link Files#walkFileTree} does.
+         */
+        BasicFileAttributes readAttributes(Path entry) throws IOException {
+            if (followLinks) {
+                try {
+                    return Files.readAttributes(entry, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    // broken link
+                }
+            }
+            return Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+    }
+
+    /**
+     * Task listing one directory and forking a task for each of its subdirectories to traverse. The task of the base
+     * directory ends the iteration once all the tasks have completed.
+     */
+    private static final class DirectoryTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Walk walk;
+
+        private final transient Path dir;
+
+        private final transient Object fileKey;
+
+        /** Task of the parent directory, used to detect the loops when following the links. */
+        private final DirectoryTask parent;
+
+        DirectoryTask(Walk walk, Path dir, Object fileKey, DirectoryTask parent) {
+            this.walk = walk;
+            this.dir = dir;
+            this.fileKey = fileKey;
+            this.parent = parent;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                List<DirectoryTask> subtasks = list();
+                if (!subtasks.isEmpty()) {
+                    invokeAll(subtasks);
+                }
+            } catch (RuntimeException e) {
+                walk.iterator.fail(e);
+            } finally {
+                if (parent == null) {
+                    walk.iterator.finish();
+                }
+            }
+        }
+
+        private List<DirectoryTask> list() {
+            List<DirectoryTask> subtasks = new ArrayList<DirectoryTask>();
+            DirectoryScanIterator iterator = walk.iterator;
+            if (iterator.isStopped()) {
+                return subtasks;
+            }
+            DirectoryStream<Path> stream = null;
+            try {
+                stream = Files.newDirectoryStream(dir);
+                for (Path entry : stream) {
+                    BasicFileAttributes attrs = walk.readAttributes(entry);
+                    String path = toRelativePath(walk.basedir, entry);
+                    if (attrs.isDirectory()) {
+                        if (walk.selector.isTraversed(path)) {
+                            checkLoop(entry, attrs.fileKey());
+                            subtasks.add(new DirectoryTask(walk, entry, attrs.fileKey(), this));
+                        }
+                    } else if (walk.selector.isSelected(path) && !iterator.put(path)) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                iterator.fail(e);
+            } catch (DirectoryIteratorException e) {
+                iterator.fail(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                iterator.fail(e);
+            } finally {
+                IOUtils.closeQuietly(stream);
+            }
+            return iterator.isStopped() ? Collections.<DirectoryTask> emptyList() : subtasks;
+        }
+
+        private void checkLoop(Path entry, Object key) throws IOException {
+            if (!walk.followLinks) {
+                return;
+            }
+            for (DirectoryTask ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+                boolean same = key != null && ancestor.fileKey != null ? key.equals(ancestor.fileKey) : Files
+                        .isSameFile(entry, ancestor.dir);
+                if (same) {
+                    throw new FileSystemLoopException(entry.toString());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.cfr.commons.util;
+
+import java.util.Map;
+
+/**
+ * Pre-parsed form of a path pattern, returned by {@link CompilablePathMatcher#compile(String)}.
+ *
+ * <p>A compiled pattern is parsed once and then matched against any number of paths without reparsing. Each method
+ * behaves as the {@link PathMatcher} method of the same name called with the pattern as first argument.
+ * Implementations are immutable and thread-safe.
+ *
+ * @author devacfr
+ * @since 1.1
+ * @see CompilablePathMatcher
+ */
+public interface PathPattern {
+
+    /**
+     * @return the pattern String this pattern was compiled from
+     */
+    String getPattern();
+
+    /**
+     * Match the given <code>path</code> against this pattern.
+     * @param path the path String to test
+     * @return <code>true</code> if the supplied <code>path</code> matched, <code>false</code> if it didn't
+     * @see PathMatcher#match(String, String)
+     */
+    boolean match(String path);
+
+    /**
+     * Match the given <code>path</code> against the corresponding part of this pattern.
+     * @param path the path String to test
+     * @return <code>true</code> if the supplied <code>path</code> matched, <code>false</code> if it didn't
+     * @see PathMatcher#matchStart(String, String)
+     */
+    boolean matchStart(String path);
+
+    /**
+     * Given a full path, determine the pattern-mapped part.
+     * @param path the full path to introspect
+     * @return the pattern-mapped part of the given <code>path</code> (never <code>null</code>)
+     * @see PathMatcher#extractPathWithinPattern(String, String)
+     */
+    String extractPathWithinPattern(String path);
+
+    /**
+     * Given a full path, returns a map of URI template variables to their values.
+     * @param path the full path to extract template variables from
+     * @return a map, containing variable names as keys; variables values as values
+     * @throws IllegalStateException if the path does not match this pattern
+     * @see PathMatcher#extractUriTemplateVariables(String, String)
+     */
+    Map<String, String> extractUriTemplateVariables(String path);
+
+    /**
+     * Combine this pattern with the given one and compile the result. Implementations may memoize the combinations, so
+     * that building the same hierarchy of patterns again does not combine nor parse them again.
+     * @param pattern the pattern to combine with this one
+     * @return the compiled combination of the two patterns
+     * @throws IllegalArgumentException when the two patterns cannot be combined
+     * @see PathMatcher#combine(String, String)
+     */
+    PathPattern combine(String pattern);
+}
@@ -0,0 +1,197 @@
+package org.cfr.commons.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reusable holder of the URI template variables captured by matching a path against a precompiled Ant-style pattern.
+ *
+ * <p>The variables are recorded as offsets into the matched path; their values are materialized only when requested
+ * with {@link #getValue(int)}. A holder is created once per pattern with
+ * {@link AntPathMatcher#createUriTemplateVariables(String)} and then reused for each path, so the matching allocates
+ * neither a map nor strings:
+ *
+ * <pre>
+ * UriTemplateVariables variables = pathMatcher.createUriTemplateVariables("/hotels/{hotel}/bookings/{booking}");
+ * if (variables.match(path)) {
+ *     String hotel = variables.getValue("hotel");
+ * }
+ * </pre>
+ *
+ * <p>A holder is not thread-safe: each thread uses its own holder.
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+public final class UriTemplateVariables {
+
+    private final AntPathMatcher pathMatcher;
+
+    private final AntPathPattern pattern;
+
+    private final List<String> names;
+
+    /** Start (even index) and end (odd index) of each variable, -1 if not captured. */
+    private final int[] bounds;
+
+    /** Sequence of the first and last capture of each variable, used to keep the map semantics of duplicate names. */
+    private final int[] firstCaptures;
+
+    private final int[] lastCaptures;
+
+    private final String[] values;
+
+    private String path;
+
+    private int captureCount;
+
+    UriTemplateVariables(AntPathMatcher pathMatcher, AntPathPattern pattern) {
+        this.pathMatcher = pathMatcher;
+        this.pattern = pattern;
+        this.names = pattern.getVariableNames();
+        this.bounds = new int[2 * names.size()];
+        this.firstCaptures = new int[names.size()];
+        this.lastCaptures = new int[names.size()];
+        this.values = new String[names.size()];
+        reset(null);
+    }
+
+    /**
+     * Match the given path against the template and capture its variables. The variables of the previous match are
+     * discarded.
+     * @param path the path to match
+     * @return <code>true</code> if the path matches the template, <code>false</code> otherwise. The variables are
+     * meaningful only if the path matches.
+     */
+    public boolean match(String path) {
+        Assert.notNull(path, "path is required");
+        return pathMatcher.doMatch(pattern, path, true, this);
+    }
+
+    /** Return the template. */
+    public String getPattern() {
+        return pattern.getPattern();
+    }
+
+    /**
+     * Return the last matched path, <code>null</code> before the first match. It is the normalized path when the
+     * matcher puts the paths in Unicode normalization form C.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /** Return the number of variables declared by the template. */
+    public int size() {
+        return names.size();
+    }
+
+    /** Return the name of the variable at the given index, in declaration order. */
+    public String getName(int index) {
+        return names.get(index);
+    }
+
+    /** Return the index of the first character of the variable in the path, -1 if the variable was not captured. */
+    public int getStart(int index) {
+        return bounds[2 * index];
+    }
+
+    /** Return the index after the last character of the variable in the path, -1 if the variable was not captured. */
+    public int getEnd(int index) {
+        return bounds[2 * index + 1];
+    }
+
+    /**
+     * Return the value of the variable at the given index, materialized on the first call.
+     * @return the value, or <code>null</code> if the variable was not captured
+     */
+    public String getValue(int index) {
+        String value = values[index];
+        if (value == null && bounds[2 * index] >= 0) {
+            value = path.substring(bounds[2 * index], bounds[2 * index + 1]);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Return the value of the variable with the given name. If the template declares the name several times, the value
+     * captured last is returned, as in the map returned by {@link AntPathMatcher#extractUriTemplateVariables}.
+     * @return the value, or <code>null</code> if no variable with this name was captured
+     */
+    public String getValue(String name) {
+        int found = -1;
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).equals(name) && lastCaptures[i] >= 0 && (found < 0 || lastCaptures[i] > lastCaptures[found])) {
+                found = i;
+            }
+        }
+        return found >= 0 ? getValue(found) : null;
+    }
+
+    /** Return the captured variables as a new map, ordered as {@link AntPathMatcher#extractUriTemplateVariables}. */
+    public Map<String, String> toMap() {
+        Map<String, String> map = new LinkedHashMap<String, String>();
+        copyTo(map);
+        return map;
+    }
+
+    /** Put the captured variables in the given map, in capture order. */
+    void copyTo(Map<String, String> map) {
+        // a variable name takes the position of its first capture and the value of its last capture
+        int[] order = new int[names.size()];
+        int count = 0;
+        for (int i = 0; i < names.size(); i++) {
+            if (firstCaptures[i] >= 0) {
+                order[count++] = i;
+            }
+        }
+        for (int i = 1; i < count; i++) {
+            int current = order[i];
+            int j = i - 1;
+            while (j >= 0 && firstCaptures[order[j]] > firstCaptures[current]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+        for (int i = 0; i < count; i++) {
+            String name = names.get(order[i]);
+            if (!map.containsKey(name)) {
+                map.put(name, getValue(name));
+            }
+        }
+    }
+
+    /**
+     * Record the capture of the variable at the given index.
+     * @param index the index of the variable in the template
+     * @param start the index of the first character of the value, -1 if the variable group did not participate
+     * @param end the index after the last character of the value, -1 if the variable group did not participate
+     */
+    void capture(int index, int start, int end) {
+        bounds[2 * index] = start;
+        bounds[2 * index + 1] = end;
+        values[index] = null;
+        if (firstCaptures[index] < 0) {
+            firstCaptures[index] = captureCount;
+        }
+        lastCaptures[index] = captureCount++;
+    }
+
+    void reset(String path) {
+        this.path = path;
+        this.captureCount = 0;
+        Arrays.fill(bounds, -1);
+        Arrays.fill(firstCaptures, -1);
+        Arrays.fill(lastCaptures, -1);
+        Arrays.fill(values, null);
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -105,7 +105,7 @@ public abstract class AbstractArchiveCreator<O extends ArchiveOutputStream, E ex
      * @return the path of the given file relative to the base name.
      * @throws IOException if an io exception occures.
      */
-    private String getRelativePath(String baseName, File file) throws IOException {
+    protected String getRelativePath(String baseName, File file) throws IOException {
         String name = file.getCanonicalPath().substring(baseName.length() + 1);
 
         if (file.isDirectory()) {
@@ -46,6 +46,13 @@ public abstract class AbstractArchiveExtractor<I extends ArchiveInputStream> imp
 
     }
 
+    /**
+     * @return the archive file.
+     */
+    protected Resource getArchiveFile() {
+        return archiveFile;
+    }
+
     protected abstract I createArchiveInputStream(InputStream fileInputStream);
 
     /**
@@ -0,0 +1,451 @@
+package org.cfr.commons.util.compress.zip;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Index of the entries of a ZIP file, read from its central directory.
+ *
+ * <p>The central directory is read and parsed once; the data of an entry is then read by seeking directly to its local
+ * header, without reading the entries before it. The index keeps no handle on the file: the file is opened for each
+ * entry read, read with positional reads, and closed once the entry has been read. The archives using ZIP64
+ * extensions, larger than 2 GB or holding data before the first entry are not indexed, see {@link #read(File)}.
+ *
+ * <p>The entry names are decoded as {@link org.apache.commons.compress.archivers.zip.ZipArchiveInputStream} does by
+ * default: as UTF-8, unless a name not flagged as UTF-8 has a valid Unicode path extra field, and with the
+ * backslashes of the names written on the FAT platform turned into slashes. Instances are immutable and thread-safe.
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+final class ZipCentralDirectory {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+    private static final int LOCAL_HEADER_LENGTH = 30;
+
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    /** Value of the 2 and 4 bytes fields moved to the ZIP64 extra field. */
+    private static final int ZIP64_MAGIC_SHORT = 0xFFFF;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private static final int UNICODE_PATH_EXTRA_FIELD = 0x7075;
+
+    private static final int ENCRYPTED_FLAG = 1;
+
+    private static final int UTF8_FLAG = 1 << 11;
+
+    private static final int PLATFORM_FAT = 0;
+
+    static final int STORED = 0;
+
+    static final int DEFLATED = 8;
+
+    private final File file;
+
+    private final List<Entry> entries;
+
+    private ZipCentralDirectory(File file, List<Entry> entries) {
+        this.file = file;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Read and index the central directory of the given file.
+     * @param file the ZIP file.
+     * @return the index, or <code>null</code> if the layout of the archive is not supported.
+     * @throws IOException if the file cannot be read or is not a ZIP file.
+     */
+    static ZipCentralDirectory read(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            int tailLength = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_LENGTH + MAX_COMMENT_LENGTH);
+            int tailOffset = (int) size - tailLength;
+            ByteBuffer tail = read(channel, tailOffset, tailLength);
+            int tailEnd = findEndOfCentralDirectory(tail);
+            if (tailEnd < 0) {
+                throw new ZipException("End of central directory not found in " + file);
+            }
+            int entryCount = tail.getShort(tailEnd + 10) & 0xFFFF;
+            long directorySize = tail.getInt(tailEnd + 12) & ZIP64_MAGIC;
+            long directoryOffset = tail.getInt(tailEnd + 16) & ZIP64_MAGIC;
+            if (entryCount == ZIP64_MAGIC_SHORT || directorySize == ZIP64_MAGIC || directoryOffset == ZIP64_MAGIC
+                    || directoryOffset + directorySize != tailOffset + tailEnd) {
+                // ZIP64 archive, or data before the first entry which shifts the offsets
+                return null;
+            }
+            ByteBuffer buffer = read(channel, directoryOffset, (int) directorySize);
+            List<Entry> entries = new ArrayList<Entry>(entryCount);
+            int offset = 0;
+            for (int i = 0; i < entryCount; i++) {
+                if (offset + CENTRAL_HEADER_LENGTH > buffer.limit()
+                        || buffer.getInt(offset) != CENTRAL_HEADER_SIGNATURE) {
+                    throw new ZipException("Invalid central directory header in " + file);
+                }
+                Entry entry = readEntry(buffer, offset);
+                if (entry == null) {
+                    return null;
+                }
+                entries.add(entry);
+                offset += CENTRAL_HEADER_LENGTH + entry.rawName.length + (buffer.getShort(offset + 30) & 0xFFFF)
+                        + (buffer.getShort(offset + 32) & 0xFFFF);
+            }
+            return new ZipCentralDirectory(file, entries);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Read the given range of the channel into a little-endian heap buffer.
+     * @throws EOFException if the channel ends before the range.
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of ZIP file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int findEndOfCentralDirectory(ByteBuffer buffer) {
+        int stop = Math.max(0, buffer.limit() - END_OF_CENTRAL_DIRECTORY_LENGTH - MAX_COMMENT_LENGTH);
+        for (int position = buffer.limit() - END_OF_CENTRAL_DIRECTORY_LENGTH; position >= stop; position--) {
+            if (buffer.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the entry described by the central header at the given offset, <code>null</code> if it uses ZIP64
+     *         extensions.
+     */
+    private static Entry readEntry(ByteBuffer buffer, int offset) {
+        int platform = (buffer.getShort(offset + 4) >> 8) & 0xFF;
+        int flags = buffer.getShort(offset + 8) & 0xFFFF;
+        int method = buffer.getShort(offset + 10) & 0xFFFF;
+        long compressedSize = buffer.getInt(offset + 20) & ZIP64_MAGIC;
+        long size = buffer.getInt(offset + 24) & ZIP64_MAGIC;
+        int nameLength = buffer.getShort(offset + 28) & 0xFFFF;
+        int extraLength = buffer.getShort(offset + 30) & 0xFFFF;
+        long localHeaderOffset = buffer.getInt(offset + 42) & ZIP64_MAGIC;
+        if (compressedSize == ZIP64_MAGIC || size == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC) {
+            return null;
+        }
+        byte[] rawName = new byte[nameLength];
+        get(buffer, offset + CENTRAL_HEADER_LENGTH, rawName);
+        boolean utf8Name = (flags & UTF8_FLAG) != 0;
+        String name = utf8Name ? new String(rawName, UTF_8) : decodeName(buffer, offset + CENTRAL_HEADER_LENGTH
+                + nameLength, extraLength, rawName);
+        if (platform == PLATFORM_FAT && name.indexOf('/') == -1) {
+            name = name.replace('\\', '/');
+        }
+        return new Entry(name, rawName, utf8Name, platform, flags, method, compressedSize, size,
+                (int) localHeaderOffset);
+    }
+
+    /**
+     * Decode the name as UTF-8, or take it from the Unicode path extra field whose CRC matches the raw name.
+     */
+    private static String decodeName(ByteBuffer buffer, int extraOffset, int extraLength, byte[] rawName) {
+        int position = extraOffset;
+        int extraEnd = extraOffset + extraLength;
+        while (position + 4 <= extraEnd) {
+            int headerId = buffer.getShort(position) & 0xFFFF;
+            int dataLength = buffer.getShort(position + 2) & 0xFFFF;
+            int data = position + 4;
+            if (data + dataLength > extraEnd) {
+                break;
+            }
+            if (headerId == UNICODE_PATH_EXTRA_FIELD && dataLength >= 5 && buffer.get(data) == 1) {
+                CRC32 crc = new CRC32();
+                crc.update(rawName);
+                if ((buffer.getInt(data + 1) & ZIP64_MAGIC) == crc.getValue()) {
+                    byte[] unicodeName = new byte[dataLength - 5];
+                    get(buffer, data + 5, unicodeName);
+                    return new String(unicodeName, UTF_8);
+                }
+            }
+            position = data + dataLength;
+        }
+        return new String(rawName, UTF_8);
+    }
+
+    private static void get(ByteBuffer buffer, int offset, byte[] bytes) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.get(bytes);
+    }
+
+    /**
+     * @return the entries, in central directory order.
+     */
+    List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Copy the data of the given {@link #STORED} entry to the given channel, without going through the heap when the
+     * target is a file.
+     * @throws IOException if the local header of the entry is invalid, the entry is encrypted or the file is truncated.
+     */
+    void transferRawData(Entry entry, WritableByteChannel target) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long position = getDataOffset(channel, entry);
+            long end = position + entry.compressedSize;
+            while (position < end) {
+                long count = channel.transferTo(position, end - position, target);
+                if (count <= 0 && position >= channel.size()) {
+                    throw new EOFException("Truncated entry " + entry.name);
+                }
+                position += count;
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Return the uncompressed content of the given entry. The archive file stays open until the stream is closed.
+     * @throws IOException if the entry is encrypted or compressed with another method than {@link #STORED} and
+     *             {@link #DEFLATED}.
+     */
+    InputStream getInputStream(Entry entry) throws IOException {
+        if (entry.method != STORED && entry.method != DEFLATED) {
+            throw new ZipException("Unsupported compression method " + entry.method + " for entry " + entry.name);
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        InputStream data;
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            data = new EntryDataInputStream(randomAccessFile, getDataOffset(channel, entry), entry);
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        } catch (RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+        if (entry.method == STORED) {
+            return data;
+        }
+        return new EntryInflaterInputStream(data, entry.size);
+    }
+
+    /**
+     * Return the offset of the data of the given entry, read from its local header.
+     * @throws IOException if the local header of the entry is invalid or the entry is encrypted.
+     */
+    private static long getDataOffset(FileChannel channel, Entry entry) throws IOException {
+        if ((entry.flags & ENCRYPTED_FLAG) != 0) {
+            throw new ZipException("Encrypted entry " + entry.name + " is not supported");
+        }
+        long offset = entry.localHeaderOffset;
+        if (offset + LOCAL_HEADER_LENGTH > channel.size()) {
+            throw new ZipException("Invalid local header for entry " + entry.name);
+        }
+        ByteBuffer header = read(channel, offset, LOCAL_HEADER_LENGTH);
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header for entry " + entry.name);
+        }
+        return offset + LOCAL_HEADER_LENGTH + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+    }
+
+    /**
+     * Central directory record of an entry.
+     */
+    static final class Entry {
+
+        private final String name;
+
+        private final byte[] rawName;
+
+        private final boolean utf8Name;
+
+        private final int platform;
+
+        private final int flags;
+
+        private final int method;
+
+        private final long compressedSize;
+
+        private final long size;
+
+        private final int localHeaderOffset;
+
+        Entry(String name, byte[] rawName, boolean utf8Name, int platform, int flags, int method,
+              long compressedSize, long size, int localHeaderOffset) {
+            this.name = name;
+            this.rawName = rawName;
+            this.utf8Name = utf8Name;
+            this.platform = platform;
+            this.flags = flags;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        /** Return the decoded name. */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Return the name as stored when it is the UTF-8 encoding of {@link #getName()}, <code>null</code> otherwise.
+         */
+        byte[] getUtf8Name() {
+            return utf8Name && platform != PLATFORM_FAT ? rawName : null;
+        }
+
+        int getMethod() {
+            return method;
+        }
+
+        boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+
+    /**
+     * Stream reading the data of an entry with positional reads, closing the archive file on close.
+     */
+    private static final class EntryDataInputStream extends InputStream {
+
+        private final RandomAccessFile randomAccessFile;
+
+        private final FileChannel channel;
+
+        private final Entry entry;
+
+        private long position;
+
+        private final long end;
+
+        EntryDataInputStream(RandomAccessFile randomAccessFile, long position, Entry entry) {
+            this.randomAccessFile = randomAccessFile;
+            this.channel = randomAccessFile.getChannel();
+            this.entry = entry;
+            this.position = position;
+            this.end = position + entry.compressedSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                return -1;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, (int) Math.min(length, end - position));
+            int count = channel.read(buffer, position);
+            if (count < 0) {
+                throw new EOFException("Truncated entry " + entry.name);
+            }
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long count = Math.max(0, Math.min(n, end - position));
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+
+        @Override
+        public void close() throws IOException {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Inflater of raw deflate data, as {@link java.util.zip.ZipFile} reads them: a dummy byte is given to the
+     * inflater after the data, and the inflater is released on close.
+     */
+    private static final class EntryInflaterInputStream extends InflaterInputStream {
+
+        private boolean eof;
+
+        private boolean closed;
+
+        EntryInflaterInputStream(InputStream in, long size) {
+            super(in, new Inflater(true), (int) Math.max(512, Math.min(size, 8192)));
+        }
+
+        @Override
+        protected void fill() throws IOException {
+            if (eof) {
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            }
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                inf.end();
+                super.close();
+            }
+        }
+    }
+}
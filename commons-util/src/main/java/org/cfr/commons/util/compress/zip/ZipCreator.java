@@ -1,24 +1,55 @@
 package org.cfr.commons.util.compress.zip;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.parallel.InputStreamSupplier;
 import org.cfr.commons.util.compress.AbstractArchiveCreator;
+import org.springframework.util.Assert;
 
 
 /**
  * Helper class to create ZIP archive.
- * 
+ * <p>With a parallelism greater than 1, the files of the directories are deflated concurrently into temporary scatter
+ * files by a {@link ParallelScatterZipCreator}, then copied into the archive in the order they were found.
+ *
  * @author acochard [Jul 30, 2009]
  */
 public class ZipCreator extends AbstractArchiveCreator<ZipArchiveOutputStream, ZipArchiveEntry> {
 
+    private static final byte[] NO_DATA = new byte[0];
+
+    private int parallelism = 1;
+
     public ZipCreator(File archiveFile) {
         super(archiveFile);
     }
 
+    /**
+     * Set the number of threads deflating the files of the directories, e.g.
+     * <code>Runtime.getRuntime().availableProcessors()</code>. Default is 1: the files are deflated one by one into the
+     * archive.
+     */
+    public void setParallelism(int parallelism) {
+        Assert.isTrue(parallelism > 0, "parallelism must be positive");
+        this.parallelism = parallelism;
+    }
+
     @Override
     protected ZipArchiveEntry createArchiveEntry(String name, File file) {
         return new ZipArchiveEntry(name);
@@ -29,4 +60,103 @@ public class ZipCreator extends AbstractArchiveCreator<ZipArchiveOutputStream, Z
         return new ZipArchiveOutputStream(stream);
     }
 
-}
\ No newline at end of file
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public File inflate(File... directories) throws IOException {
+        if (parallelism == 1) {
+            return super.inflate(directories);
+        }
+        // the whole tree is listed first: a listing failure must not leave entries deflated into temporary files
+        List<FileSupplier> files = new ArrayList<FileSupplier>();
+        for (File directory : directories) {
+            String baseName = directory.getCanonicalPath();
+            addFiles(baseName, files, directory);
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(parallelism);
+        try {
+            ParallelScatterZipCreator scatterZipCreator = new ParallelScatterZipCreator(executorService);
+            for (FileSupplier file : files) {
+                scatterZipCreator.addArchiveEntry(file.entry, file);
+            }
+            ZipArchiveOutputStream outStream = createArchiveOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(getArchiveFile())));
+            try {
+                scatterZipCreator.writeTo(outStream);
+            } finally {
+                outStream.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while inflating " + getArchiveFile());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalStateException && cause.getCause() instanceof IOException) {
+                // thrown by FileSupplier
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            // already shut down once the archive is written
+            executorService.shutdownNow();
+        }
+        return getArchiveFile();
+    }
+
+    /**
+     * List the files within the given directory, in the order the sequential mode adds them.
+     */
+    private void addFiles(String baseName, List<FileSupplier> files, File directory) throws IOException {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            throw new IOException("Cannot list " + directory);
+        }
+        for (File file : children) {
+            ZipArchiveEntry entry = createArchiveEntry(getRelativePath(baseName, file), file);
+            if (file.isDirectory()) {
+                entry.setMethod(ZipArchiveEntry.STORED);
+                files.add(new FileSupplier(entry, null));
+                addFiles(baseName, files, file);
+            } else {
+                entry.setMethod(ZipArchiveEntry.DEFLATED);
+                files.add(new FileSupplier(entry, file));
+            }
+        }
+    }
+
+    /**
+     * Opens the file of an entry to deflate when a worker thread is ready for it.
+     */
+    private static final class FileSupplier implements InputStreamSupplier {
+
+        private final ZipArchiveEntry entry;
+
+        private final File file;
+
+        FileSupplier(ZipArchiveEntry entry, File file) {
+            this.entry = entry;
+            this.file = file;
+        }
+
+        @Override
+        public InputStream get() {
+            if (file == null) {
+                return new ByteArrayInputStream(NO_DATA);
+            }
+            try {
+                return new FileInputStream(file);
+            } catch (FileNotFoundException e) {
+                throw new IllegalStateException("Cannot read " + file, e);
+            }
+        }
+    }
+
+}
@@ -1,27 +1,380 @@
 package org.cfr.commons.util.compress.zip;
 
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.cfr.commons.util.AntPathByteMatcher;
+import org.cfr.commons.util.AntPathMatcher;
 import org.cfr.commons.util.compress.AbstractArchiveExtractor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
 
 
 /**
  * Helper class to extract ZIP archive.
- * 
+ * <p>An archive backed by a file is read in random-access mode: its central directory is indexed on first use, so that
+ * {@link #entryExist(String)}, {@link #deflate(String)} and the pattern extractions look the entries up in the index
+ * and seek directly to their data. The index is rebuilt when the file changes. The other archives, and those the
+ * index does not support (ZIP64 archives, self-extracting archives), are read in streaming mode.
+ * <p>The index holds no handle on the archive file, which is opened for each entry read and closed once the entry has
+ * been read. The stream returned by {@link #deflate(String)} keeps the file open until it is closed: on Windows the
+ * archive file cannot be deleted or replaced meanwhile, so the stream must be closed as soon as it is read.
+ * <p>In random-access mode, the entries can also be decompressed concurrently on an {@link Executor}, see
+ * {@link #setExecutor(Executor)}.
+ *
  * @author acochard [Jul 30, 2009]
  */
 public class ZipExtractor extends AbstractArchiveExtractor<ZipArchiveInputStream> {
 
+    /** Default maximum number of files written at the same time by a concurrent extraction. */
+    public static final int DEFAULT_MAX_OPEN_FILES = 16;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    private boolean randomAccess = true;
+
+    private Executor executor;
+
+    private int maxOpenFiles = DEFAULT_MAX_OPEN_FILES;
+
+    /** Whether the archive file has been indexed, the index being <code>null</code> if not supported. */
+    private boolean indexed;
+
+    private ZipCentralDirectory centralDirectory;
+
+    private long indexedLastModified;
+
+    private long indexedLength;
+
     public ZipExtractor(Resource archiveFile) throws FileNotFoundException {
         super(archiveFile);
     }
 
+    /**
+     * Specify whether to read an archive backed by a file in random-access mode. Default is <code>true</code>.
+     */
+    public void setRandomAccess(boolean randomAccess) {
+        this.randomAccess = randomAccess;
+    }
+
+    /**
+     * Set the executor decompressing the entries concurrently when extracting to a directory in random-access mode.
+     * Default is <code>null</code>: the entries are extracted one by one on the calling thread. The extraction still
+     * returns once all the entries have been written.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Set the maximum number of files written at the same time by a concurrent extraction, which is also the maximum
+     * number of entries waiting in the executor. Default is {@link #DEFAULT_MAX_OPEN_FILES}.
+     */
+    public void setMaxOpenFiles(int maxOpenFiles) {
+        Assert.isTrue(maxOpenFiles > 0, "maxOpenFiles must be positive");
+        this.maxOpenFiles = maxOpenFiles;
+    }
+
     @Override
     protected ZipArchiveInputStream createArchiveInputStream(InputStream fileInputStream) {
         return new ZipArchiveInputStream(fileInputStream);
     }
 
-}
\ No newline at end of file
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deflate(File destination, String outputFilePattern, boolean flat) throws IOException {
+        ZipCentralDirectory directory = getCentralDirectory();
+        if (directory == null) {
+            super.deflate(destination, outputFilePattern, flat);
+            return;
+        }
+        Assert.notNull(destination);
+        if (!destination.exists() || !destination.isDirectory()) {
+            throw new IllegalArgumentException("Invalid destination: " + destination.getCanonicalPath());
+        }
+
+        Executor executor = this.executor;
+        AntPathMatcher matcher = new AntPathMatcher();
+        AntPathByteMatcher byteMatcher = createByteMatcher(outputFilePattern);
+        // the last entry extracted to a file wins, as in sequential mode
+        Map<File, ZipCentralDirectory.Entry> extractions = new LinkedHashMap<File, ZipCentralDirectory.Entry>();
+
+        for (ZipCentralDirectory.Entry entry : directory.getEntries()) {
+
+            String entryName = entry.getName();
+
+            // Is a directory
+            if (entry.isDirectory() && !flat) {
+                File newDir = new File(destination, entryName);
+                newDir.mkdirs();
+                continue;
+            }
+
+            // Output file pattern check
+            if (StringUtils.isNotEmpty(outputFilePattern)
+                    && !matchFileName(entry, outputFilePattern, byteMatcher, matcher)) {
+                continue;
+            }
+
+            // Remove directory strucutre if flat mode actived
+            if (flat) {
+                entryName = new File(entryName).getName();
+            }
+            File newFile = new File(destination, entryName);
+
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Deflating" + getArchiveFile().getFilename());
+                LOGGER.debug("Extracting file " + newFile.getAbsolutePath());
+            }
+
+            // Make the directory structure
+            newFile.getParentFile().mkdirs();
+            if (executor == null) {
+                extract(directory, entry, newFile);
+            } else {
+                extractions.put(newFile, entry);
+            }
+        }
+        if (executor != null) {
+            extractConcurrently(directory, extractions, executor);
+        }
+    }
+
+    /**
+     * Returns the content of the first entry according to the <code>outputFilePattern</code> parameter. In random-access
+     * mode, the content is read from the archive file as the returned stream is read, and the archive file stays open
+     * until the stream is closed.
+     */
+    @Override
+    public InputStream deflate(String outputFilePattern) throws IOException {
+        ZipCentralDirectory directory = getCentralDirectory();
+        if (directory == null) {
+            return super.deflate(outputFilePattern);
+        }
+        AntPathMatcher matcher = new AntPathMatcher();
+        AntPathByteMatcher byteMatcher = createByteMatcher(outputFilePattern);
+        for (ZipCentralDirectory.Entry entry : directory.getEntries()) {
+            if (StringUtils.isNotEmpty(outputFilePattern)
+                    && !matchFileName(entry, outputFilePattern, byteMatcher, matcher)) {
+                continue;
+            }
+            return directory.getInputStream(entry);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean entryExist(String outputFilePattern) throws IOException {
+        ZipCentralDirectory directory = getCentralDirectory();
+        if (directory == null) {
+            return super.entryExist(outputFilePattern);
+        }
+        Assert.hasText(outputFilePattern);
+        AntPathMatcher matcher = new AntPathMatcher();
+        AntPathByteMatcher byteMatcher = createByteMatcher(outputFilePattern);
+        for (ZipCentralDirectory.Entry entry : directory.getEntries()) {
+            if (matchFileName(entry, outputFilePattern, byteMatcher, matcher)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the archive file, read again if the file has changed.
+     * @return the index, or <code>null</code> if the archive must be read in streaming mode.
+     */
+    private synchronized ZipCentralDirectory getCentralDirectory() throws IOException {
+        if (!randomAccess) {
+            return null;
+        }
+        File file;
+        try {
+            file = getArchiveFile().getFile();
+        } catch (IOException e) {
+            // not backed by a file
+            return null;
+        }
+        long lastModified = file.lastModified();
+        long length = file.length();
+        if (!indexed || lastModified != indexedLastModified || length != indexedLength) {
+            centralDirectory = ZipCentralDirectory.read(file);
+            indexed = true;
+            indexedLastModified = lastModified;
+            indexedLength = length;
+        }
+        return centralDirectory;
+    }
+
+    /**
+     * Compiles the output file pattern into a matcher of the UTF-8 encoded names of the indexed entries.
+     * @return the matcher, or <code>null</code> if the pattern must be matched against the decoded names.
+     */
+    private static AntPathByteMatcher createByteMatcher(String outputFilePattern) {
+        // the raw names are split on '/' only, as is the name of a File on such a platform
+        if (StringUtils.isEmpty(outputFilePattern) || File.separatorChar != '/') {
+            return null;
+        }
+        return AntPathByteMatcher.compile(outputFilePattern);
+    }
+
+    private static boolean matchFileName(ZipCentralDirectory.Entry entry, String outputFilePattern,
+                                         AntPathByteMatcher byteMatcher, AntPathMatcher matcher) {
+        byte[] rawName = byteMatcher != null ? entry.getUtf8Name() : null;
+        if (rawName != null) {
+            return byteMatcher.matchFileName(rawName, 0, rawName.length);
+        }
+        return matcher.match(outputFilePattern, new File(entry.getName()).getName());
+    }
+
+    /**
+     * Extracts the given entries on the executor, keeping at most {@link #maxOpenFiles} of them submitted at once. On
+     * failure, the entries not started yet are skipped and the first failure is thrown once the others have completed.
+     */
+    private void extractConcurrently(final ZipCentralDirectory directory,
+                                     Map<File, ZipCentralDirectory.Entry> extractions, Executor executor)
+            throws IOException {
+        final Semaphore openFiles = new Semaphore(maxOpenFiles);
+        final AtomicBoolean failed = new AtomicBoolean();
+        List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(extractions.size());
+        try {
+            for (final Map.Entry<File, ZipCentralDirectory.Entry> extraction : extractions.entrySet()) {
+                openFiles.acquire();
+                if (failed.get()) {
+                    openFiles.release();
+                    break;
+                }
+                FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+
+                    @Override
+                    public Void call() throws IOException {
+                        try {
+                            extract(directory, extraction.getValue(), extraction.getKey());
+                            return null;
+                        } catch (IOException e) {
+                            failed.set(true);
+                            throw e;
+                        } catch (RuntimeException e) {
+                            failed.set(true);
+                            throw e;
+                        } finally {
+                            openFiles.release();
+                        }
+                    }
+                });
+                try {
+                    executor.execute(task);
+                } catch (RuntimeException e) {
+                    openFiles.release();
+                    cancel(tasks);
+                    throw e;
+                }
+                tasks.add(task);
+            }
+            for (FutureTask<Void> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(tasks);
+            throw new InterruptedIOException("Interrupted while deflating " + getArchiveFile().getFilename());
+        } catch (ExecutionException e) {
+            cancel(tasks);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Cancels the tasks not started yet and waits for the running ones.
+     */
+    private static void cancel(List<FutureTask<Void>> tasks) {
+        boolean interrupted = false;
+        for (FutureTask<Void> task : tasks) {
+            task.cancel(false);
+        }
+        for (FutureTask<Void> task : tasks) {
+            while (true) {
+                try {
+                    task.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (CancellationException e) {
+                    break;
+                } catch (ExecutionException e) {
+                    // only the first failure is reported
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void extract(ZipCentralDirectory directory, ZipCentralDirectory.Entry entry, File newFile)
+            throws IOException {
+        FileOutputStream fileOutputStream = null;
+        try {
+            fileOutputStream = new FileOutputStream(newFile);
+            FileChannel channel = fileOutputStream.getChannel();
+            if (entry.getMethod() == ZipCentralDirectory.STORED) {
+                // copied from file to file by the system
+                directory.transferRawData(entry, channel);
+            } else {
+                ReadableByteChannel entryChannel = Channels.newChannel(directory.getInputStream(entry));
+                try {
+                    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                    while (entryChannel.read(buffer) != -1) {
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                        buffer.clear();
+                    }
+                } finally {
+                    IOUtils.closeQuietly(entryChannel);
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(fileOutputStream);
+        }
+    }
+
+}
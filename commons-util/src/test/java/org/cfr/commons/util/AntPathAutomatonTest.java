@@ -0,0 +1,76 @@
+package org.cfr.commons.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AntPathAutomatonTest {
+
+    private static final String[] SEGMENTS = { "a", "b", "*", "**", "a*", "*b", "?", "{v}", "ab" };
+
+    private AntPathMatcher pathMatcher;
+
+    @Before
+    public void setUp() {
+        pathMatcher = new AntPathMatcher();
+        pathMatcher.setUseAutomaton(true);
+    }
+
+    @Test
+    public void compileOnlyPatternsWithDoubleWildcard() {
+        assertNotNull(pathMatcher.getCompiledPattern("/bla/**/bla").getAutomaton());
+        assertNull(pathMatcher.getCompiledPattern("/bla/*/bla").getAutomaton());
+
+        StringBuilder pattern = new StringBuilder("/**");
+        for (int i = 0; i < AntPathAutomaton.MAX_SEGMENTS; i++) {
+            pattern.append("/a");
+        }
+        assertNull(pathMatcher.getCompiledPattern(pattern.toString()).getAutomaton());
+        assertTrue(pathMatcher.match(pattern.toString(), pattern.toString().replace("**", "a")));
+    }
+
+    @Test
+    public void match() {
+        assertTrue(pathMatcher.match("/bla/**/bla", "/bla/testing/testing/bla"));
+        assertTrue(pathMatcher.match("/bla/**/bla", "/bla/bla"));
+        assertFalse(pathMatcher.match("/bla/**/bla", "/bla/testing/testing/blab"));
+        assertTrue(pathMatcher.match("/*bla*/**/bla/**", "/XXXblaXXXX/testing/testing/bla/testing/testing/"));
+        assertTrue(pathMatcher.match("/**/a/**/a/**/b", "/a/x/a/a/y/b"));
+        assertFalse(pathMatcher.match("/**/a/**/a/**/b", "/a/x/b/y/b"));
+        assertTrue(pathMatcher.match("/foo/bar/**", "/foo/bar"));
+        assertFalse(pathMatcher.match("/foo/bar/**", "foo/bar"));
+    }
+
+    @Test
+    public void sameResultAsBacktracking() {
+        AntPathMatcher backtracking = new AntPathMatcher();
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            String pattern = generate(random, SEGMENTS);
+            String path = generate(random, new String[] { "a", "b", "ab", "ba", "c" });
+            assertEquals(pattern + " ~ " + path, backtracking.match(pattern, path), pathMatcher.match(pattern, path));
+        }
+    }
+
+    private static String generate(Random random, String[] segments) {
+        StringBuilder builder = new StringBuilder("/");
+        int count = random.nextInt(7);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append('/');
+            }
+            builder.append(segments[random.nextInt(segments.length)]);
+        }
+        if (random.nextInt(4) == 0) {
+            builder.append('/');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package org.cfr.commons.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AntPathByteMatcherTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void compileSupportedPatternsOnly() {
+        assertNotNull(AntPathByteMatcher.compile("*.txt"));
+        assertNotNull(AntPathByteMatcher.compile("r?sum\u00E9-*.pdf"));
+        assertNotNull(AntPathByteMatcher.compile("**"));
+        assertNull(AntPathByteMatcher.compile("docs/*.txt"));
+        assertNull(AntPathByteMatcher.compile("{name}.txt"));
+        assertNull(AntPathByteMatcher.compile(" "));
+    }
+
+    @Test
+    public void match() {
+        AntPathByteMatcher matcher = AntPathByteMatcher.compile("*.txt");
+        assertTrue(match(matcher, "root.txt"));
+        assertTrue(match(matcher, ".txt"));
+        assertTrue(match(matcher, " root.txt "));
+        assertFalse(match(matcher, "root.tst"));
+        assertFalse(match(matcher, "ro\not.txt"));
+
+        matcher = AntPathByteMatcher.compile("r?sum?.txt");
+        assertTrue(match(matcher, "r\u00E9sum\u00E9.txt"));
+        assertTrue(match(matcher, "r\uD83D\uDE00sume.txt"));
+        assertFalse(match(matcher, "rsum\u00E9.txt"));
+
+        assertFalse(match(AntPathByteMatcher.compile("*"), ""));
+        assertTrue(match(AntPathByteMatcher.compile("**"), ""));
+    }
+
+    @Test
+    public void matchFileName() {
+        AntPathByteMatcher matcher = AntPathByteMatcher.compile("*.tst");
+        byte[] name = "sub-folder/sub-folder.tst".getBytes(UTF_8);
+        assertTrue(matcher.matchFileName(name, 0, name.length));
+        assertFalse(matcher.matchFileName(name, 0, 10));
+        name = "sub-folder.tst/".getBytes(UTF_8);
+        assertTrue(matcher.matchFileName(name, 0, name.length));
+    }
+
+    @Test
+    public void sameResultAsAntPathMatcher() {
+        String[] patternParts = { "a", "b", "*", "?", "**", "\u00E9", "\uD83D\uDE00", " ", "." };
+        String[] nameParts = { "a", "b", "\u00E9", "\uD83D\uDE00", " ", "\n", "\u2028", "\t", "/", ".", "\u00A0", "\u0001" };
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+        Random random = new Random(5);
+        for (int i = 0; i < 20000; i++) {
+            String pattern = generate(random, patternParts, 5);
+            String name = generate(random, nameParts, 7);
+            AntPathByteMatcher matcher = AntPathByteMatcher.compile(pattern);
+            if (matcher == null) {
+                continue;
+            }
+            byte[] bytes = name.getBytes(UTF_8);
+            assertEquals(pattern + " ~ " + name, pathMatcher.match(pattern, new File(name).getName()),
+                matcher.matchFileName(bytes, 0, bytes.length));
+        }
+    }
+
+    private static boolean match(AntPathByteMatcher matcher, String name) {
+        byte[] bytes = name.getBytes(UTF_8);
+        return matcher.match(bytes, 0, bytes.length);
+    }
+
+    private static String generate(Random random, String[] parts, int max) {
+        StringBuilder builder = new StringBuilder();
+        int count = random.nextInt(max + 1);
+        for (int i = 0; i < count; i++) {
+            builder.append(parts[random.nextInt(parts.length)]);
+        }
+        return builder.toString();
+    }
+}
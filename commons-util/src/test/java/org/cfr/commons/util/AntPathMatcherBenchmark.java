@@ -0,0 +1,163 @@
+package org.cfr.commons.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks of {@link AntPathMatcher} and {@link AntPathStringMatcher}, giving the baseline against which
+ * matcher engines are compared.
+ *
+ * <p>Each scenario pairs a pattern kind with a short or a deep path. The benchmarks are not unit tests and are not run
+ * by the build; run {@link #main(String[])} in a JVM started on the test classpath, for instance:
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *     -Dexec.args="-classpath %classpath org.cfr.commons.util.AntPathMatcherBenchmark"
+ * </pre>
+ *
+ * <code>exec:java</code> does not work: the benchmarks run in a forked JVM, see {@link Fork}, which JMH starts with the
+ * class path of the launching JVM, and that is the class path of Maven itself under <code>exec:java</code>.
+ *
+ * The run attaches the JMH GC profiler, which reports the bytes allocated per operation
+ * (<code>gc.alloc.rate.norm</code>) next to the timings. The results of a baseline run are recorded in
+ * <code>AntPathMatcherBenchmark.md</code>, next to this class.
+ *
+ * @author devacfr
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AntPathMatcherBenchmark {
+
+    private static final Map<String, String[]> SCENARIOS = new HashMap<String, String[]>();
+
+    static {
+        // scenario -> { pattern, matching path, pattern combined with }
+        SCENARIOS.put("literal-short", new String[] { "/hotels/list", "/hotels/list", "/bookings" });
+        SCENARIOS.put("literal-deep", new String[] { "/app/web/hotels/europe/switzerland/zurich/list",
+            "/app/web/hotels/europe/switzerland/zurich/list", "/bookings" });
+        SCENARIOS.put("star-short", new String[] { "/hotels/*", "/hotels/list", "/bookings" });
+        SCENARIOS.put("star-deep", new String[] { "/app/*/hotels/*/switzerland/*/list.*",
+            "/app/web/hotels/europe/switzerland/zurich/list.html", "*.do" });
+        SCENARIOS.put("double-star-short", new String[] { "/**/*.html", "/hotels/list.html", "/bookings" });
+        SCENARIOS.put("double-star-deep", new String[] { "/app/**/switzerland/**/*.html",
+            "/app/web/hotels/europe/switzerland/zurich/rooms/list.html", "/bookings" });
+        SCENARIOS.put("variable-short", new String[] { "/hotels/{hotel}", "/hotels/1", "/bookings/{booking}" });
+        SCENARIOS.put("variable-deep", new String[] { "/app/{area}/hotels/{region}/{country}/{city}/{hotel}",
+            "/app/web/hotels/europe/switzerland/zurich/1", "/bookings/{booking}" });
+        SCENARIOS.put("regex-variable-short", new String[] { "/hotels/{hotel:\\d+}", "/hotels/1",
+            "/bookings/{booking:\\d+}" });
+        SCENARIOS.put("regex-variable-deep", new String[] {
+            "/app/{area:[a-z]+}/hotels/{region}/{country}/{city:[a-z]+}/{hotel:\\d+}.{ext:[a-z]+}",
+            "/app/web/hotels/europe/switzerland/zurich/1.html", "/bookings/{booking:\\d+}" });
+    }
+
+    @Param({ "literal-short", "literal-deep", "star-short", "star-deep", "double-star-short", "double-star-deep",
+            "variable-short", "variable-deep", "regex-variable-short", "regex-variable-deep" })
+    public String scenario;
+
+    /** Whether the compiled patterns are cached, <code>false</code> measures the parsing cost on each call. */
+    @Param({ "true", "false" })
+    public boolean cachePatterns;
+
+    private AntPathMatcher pathMatcher;
+
+    private AntPathStringMatcher stringMatcher;
+
+    private String pattern;
+
+    private String path;
+
+    private String mismatchPath;
+
+    private String otherPattern;
+
+    private String lastSegment;
+
+    @Setup
+    public void setUp() {
+        String[] values = SCENARIOS.get(scenario);
+        pattern = values[0];
+        path = values[1];
+        otherPattern = values[2];
+        // a trailing segment no pattern accepts
+        mismatchPath = path + "/#";
+        pathMatcher = new AntPathMatcher();
+        pathMatcher.setCachePatterns(cachePatterns);
+        String[] patternDirs = AntPathMatcher.tokenizeToStringArray(pattern, "/");
+        String[] pathDirs = AntPathMatcher.tokenizeToStringArray(path, "/");
+        stringMatcher = new AntPathStringMatcher(patternDirs[patternDirs.length - 1]);
+        lastSegment = pathDirs[pathDirs.length - 1];
+    }
+
+    @Benchmark
+    public boolean match() {
+        return pathMatcher.match(pattern, path);
+    }
+
+    @Benchmark
+    public boolean mismatch() {
+        return pathMatcher.match(pattern, mismatchPath);
+    }
+
+    @Benchmark
+    public boolean matchStart() {
+        return pathMatcher.matchStart(pattern, path);
+    }
+
+    @Benchmark
+    public Map<String, String> extractUriTemplateVariables() {
+        return pathMatcher.extractUriTemplateVariables(pattern, path);
+    }
+
+    @Benchmark
+    public String extractPathWithinPattern() {
+        return pathMatcher.extractPathWithinPattern(pattern, path);
+    }
+
+    @Benchmark
+    public String combine() {
+        return pathMatcher.combine(pattern, otherPattern);
+    }
+
+    @Benchmark
+    public boolean matchSegment() {
+        return stringMatcher.matchStrings(lastSegment, null);
+    }
+
+    @Benchmark
+    public Map<String, String> matchSegmentVariables() {
+        Map<String, String> uriTemplateVariables = new HashMap<String, String>();
+        stringMatcher.matchStrings(lastSegment, uriTemplateVariables);
+        return uriTemplateVariables;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(AntPathMatcherBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,196 @@
+package org.cfr.commons.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AntPathMatcherTest {
+
+    private AntPathMatcher pathMatcher;
+
+    @Before
+    public void setUp() {
+        pathMatcher = new AntPathMatcher();
+    }
+
+    @Test
+    public void match() {
+        assertTrue(pathMatcher.match("test", "test"));
+        assertTrue(pathMatcher.match("/test", "/test"));
+        assertFalse(pathMatcher.match("/test.jpg", "test.jpg"));
+        assertTrue(pathMatcher.match("t?st", "test"));
+        assertTrue(pathMatcher.match("*.cat", "test.cat"));
+        assertFalse(pathMatcher.match("*.cat", "test.dog"));
+        assertTrue(pathMatcher.match("/test/*", "/test/Test"));
+        assertFalse(pathMatcher.match("/test/*", "/test/Test/t"));
+        assertTrue(pathMatcher.match("/**", "/testing/testing"));
+        assertTrue(pathMatcher.match("/bla/**/bla", "/bla/testing/testing/bla"));
+        assertTrue(pathMatcher.match("/bla/**/bla", "/bla/bla"));
+        assertFalse(pathMatcher.match("/bla/**/bla", "/bla/testing/testing/blab"));
+        assertTrue(pathMatcher.match("/*bla*/**/bla/**", "/XXXblaXXXX/testing/testing/bla/testing/testing/"));
+        assertTrue(pathMatcher.match("/x/x/**/bla", "/x/x/x/bla"));
+        assertTrue(pathMatcher.match("/foo/bar/**", "/foo/bar"));
+    }
+
+    @Test
+    public void matchStart() {
+        assertTrue(pathMatcher.matchStart("/x/x/**/bla", "/x/x/x/"));
+        assertTrue(pathMatcher.matchStart("/test/**", "/test"));
+        assertFalse(pathMatcher.matchStart("/test/*.jpg", "/other"));
+    }
+
+    @Test
+    public void matchWithCapturingGroupInVariableRegex() {
+        assertTrue(pathMatcher.match("/x/{id:(\\d+)}.html", "/x/42.html"));
+        assertFalse(pathMatcher.match("/x/{id:(\\d+)}.html", "/x/id.html"));
+        assertTrue(pathMatcher.matchStart("/x/{id:(\\d+)}.html/**", "/x/42.html"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void extractWithCapturingGroupInVariableRegexIsRejected() {
+        pathMatcher.extractUriTemplateVariables("/x/{id:(\\d+)}.html", "/x/42.html");
+    }
+
+    @Test
+    public void extractUriTemplateVariables() {
+        Map<String, String> result = pathMatcher.extractUriTemplateVariables("/hotels/{hotel}/bookings/{booking}",
+            "/hotels/1/bookings/2");
+        assertEquals("1", result.get("hotel"));
+        assertEquals("2", result.get("booking"));
+
+        result = pathMatcher.extractUriTemplateVariables("/{symbolicName:[\\w\\.]+}-{version:[\\w\\.]+}.jar",
+            "/com.example-1.0.0.jar");
+        assertEquals("com.example", result.get("symbolicName"));
+        assertEquals("1.0.0", result.get("version"));
+    }
+
+    @Test
+    public void extractPathWithinPattern() {
+        assertEquals("", pathMatcher.extractPathWithinPattern("/docs/commit.html", "/docs/commit.html"));
+        assertEquals("cvs/commit", pathMatcher.extractPathWithinPattern("/docs/*", "/docs/cvs/commit"));
+        assertEquals("docs/cvs/commit.html", pathMatcher.extractPathWithinPattern("/d?cs/**", "/docs/cvs/commit.html"));
+    }
+
+    @Test
+    public void pathSegmentsAreTrimmedAndEmptySegmentsIgnored() {
+        assertTrue(pathMatcher.match("/a/b", "//a/ b "));
+        assertTrue(pathMatcher.match("/a/*.xml", "/a/  /ctx.xml"));
+        assertEquals("ctx.xml", pathMatcher.extractPathWithinPattern("/a/*.xml", "/a//ctx.xml "));
+        assertEquals("x", pathMatcher.extractUriTemplateVariables("/a/{v}", "/a/ x").get("v"));
+
+        pathMatcher.setPathSeparator("/.");
+        assertTrue(pathMatcher.match("a/b/*", "a.b/c"));
+        assertEquals("c", pathMatcher.extractPathWithinPattern("a/b/*", "a.b/c"));
+    }
+
+    @Test
+    public void filter() {
+        List<String> paths = Arrays.asList("/docs/a.xml", "/docs/b.txt", "/docs/c/d.xml", "/docs/e.xml");
+        assertEquals(Arrays.asList("/docs/a.xml", "/docs/e.xml"), pathMatcher.filter("/docs/*.xml", paths));
+        assertEquals(Arrays.asList("/docs/a.xml", "/docs/c/d.xml", "/docs/e.xml"),
+            pathMatcher.filter("/docs/**/*.xml", paths, null));
+    }
+
+    @Test
+    public void filterInParallelKeepsInputOrder() {
+        List<String> paths = new ArrayList<String>();
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 10 * AntPathMatcher.PARALLEL_FILTER_THRESHOLD; i++) {
+            String path = "/entries/" + (i % 7) + "/entry" + i + (i % 3 == 0 ? ".xml" : ".txt");
+            paths.add(path);
+            if (i % 3 == 0 && i % 7 == 2) {
+                expected.add(path);
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(expected, pathMatcher.filter("/entries/2/*.xml", paths, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void patternComparator() {
+        List<String> patterns = new ArrayList<String>(Arrays.asList("/hotels/**", "/hotels/*", "/hotels/{hotel}",
+            "/hotels/new", "/hotels/new.*"));
+        Collections.sort(patterns, pathMatcher.getPatternComparator("/hotels/new"));
+        assertEquals(Arrays.asList("/hotels/new", "/hotels/new.*", "/hotels/{hotel}", "/hotels/*", "/hotels/**"),
+            patterns);
+
+        AntPathMatcher.PatternSpecificity specificity = pathMatcher.getSpecificity("/hotels/{hotel}/*.html");
+        assertEquals(1, specificity.getWildCardCount());
+        assertEquals(1, specificity.getBracketCount());
+        assertEquals("/hotels/#/*.html".length(), specificity.getLength());
+        // taken from the compiled pattern once compiled
+        assertSame(pathMatcher.getCompiledPattern("/hotels/{hotel}/*.html").getSpecificity(),
+            pathMatcher.getSpecificity("/hotels/{hotel}/*.html"));
+    }
+
+    @Test
+    public void patternComparatorDoesNotCompilePatterns() {
+        List<String> patterns = new ArrayList<String>(Arrays.asList("/hotels/{id:(}", "/hotels/*", "/hotels/new"));
+        Collections.sort(patterns, pathMatcher.getPatternComparator("/hotels/new"));
+        assertEquals(Arrays.asList("/hotels/new", "/hotels/{id:(}", "/hotels/*"), patterns);
+        // not put in the compiled pattern cache
+        assertNotSame(pathMatcher.getSpecificity("/hotels/*"), pathMatcher.getSpecificity("/hotels/*"));
+    }
+
+    @Test
+    public void compiledPatternsAreCached() {
+        AntPathPattern compiled = pathMatcher.getCompiledPattern("/test/*");
+        assertSame(compiled, pathMatcher.getCompiledPattern("/test/*"));
+
+        pathMatcher.setPathSeparator(".");
+        assertNotSame(compiled, pathMatcher.getCompiledPattern("/test/*"));
+        assertTrue(pathMatcher.match("test.*", "test.txt"));
+
+        pathMatcher.setCachePatterns(false);
+        assertNotSame(pathMatcher.getCompiledPattern("test.*"), pathMatcher.getCompiledPattern("test.*"));
+        assertTrue(pathMatcher.match("test.*", "test.txt"));
+    }
+
+    @Test
+    public void cacheLimitDoesNotChangeResults() {
+        pathMatcher.setCacheLimit(1);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(pathMatcher.match("/test" + i + "/**", "/test" + i + "/a/b"));
+            assertFalse(pathMatcher.match("/test" + i + "/*", "/test" + i + "/a/b"));
+        }
+    }
+
+    @Test
+    public void caseInsensitive() {
+        assertFalse(pathMatcher.match("/Hotels/*.HTML", "/hotels/list.html"));
+        pathMatcher.setCaseSensitive(false);
+        assertTrue(pathMatcher.match("/Hotels/*.HTML", "/hotels/list.html"));
+        assertTrue(pathMatcher.match("/hotels/**/L?ST.*", "/HOTELS/a/b/list.html"));
+        assertTrue(pathMatcher.match("/*OTEL*/{hotel:[a-z]+}", "/hotels/ABC"));
+        assertFalse(pathMatcher.match("/hotels/*.html", "/bookings/list.html"));
+        assertEquals("ABC", pathMatcher.extractUriTemplateVariables("/Hotels/{hotel}", "/hotels/ABC").get("hotel"));
+        assertTrue(pathMatcher.compile("/\u0130stanbul").match("/istanbul"));
+    }
+
+    @Test
+    public void normalizeUnicode() {
+        // "caf\u00e9" is composed, "cafe\u0301" decomposed
+        assertFalse(pathMatcher.match("/caf\u00e9/*", "/cafe\u0301/menu"));
+        pathMatcher.setNormalizeUnicode(true);
+        assertTrue(pathMatcher.match("/caf\u00e9/*", "/cafe\u0301/menu"));
+        assertTrue(pathMatcher.match("/cafe\u0301/*", "/caf\u00e9/menu"));
+        assertEquals("caf\u00e9", pathMatcher.extractUriTemplateVariables("/{name}/*", "/cafe\u0301/menu").get("name"));
+        assertEquals("caf\u00e9/menu", pathMatcher.extractPathWithinPattern("/**", "/cafe\u0301/menu"));
+    }
+}
@@ -0,0 +1,113 @@
+package org.cfr.commons.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AntPathRouterTest {
+
+    private static final String[] SEGMENTS = { "hotels", "bookings", "new", "*", "**", "{hotel}", "*.html", "b?oks",
+            "h*", "{id:[0-9]+}", "1", "2", "index.html" };
+
+    private AntPathMatcher pathMatcher;
+
+    private AntPathRouter<String> router;
+
+    @Before
+    public void setUp() {
+        pathMatcher = new AntPathMatcher();
+        router = new AntPathRouter<String>(pathMatcher);
+    }
+
+    @Test
+    public void routeToMostSpecificPattern() {
+        router.addRoute("/hotels/*", "any");
+        router.addRoute("/hotels/{hotel}", "hotel");
+        router.addRoute("/hotels/new", "new");
+        router.addRoute("/**", "default");
+        router.addRoute("/hotels/*/bookings", "bookings");
+
+        assertEquals("new", router.route("/hotels/new"));
+        assertEquals("hotel", router.route("/hotels/1"));
+        assertEquals("bookings", router.route("/hotels/1/bookings"));
+        assertEquals("default", router.route("/other"));
+        assertEquals("/hotels/{hotel}", router.lookupPattern("/hotels/1"));
+        assertEquals(Arrays.asList("/hotels/new", "/hotels/{hotel}", "/hotels/*", "/**"),
+            router.getMatchingPatterns("/hotels/new"));
+    }
+
+    @Test
+    public void noRoute() {
+        router.addRoute("/hotels/*", "any");
+        assertNull(router.route("/bookings/1"));
+        assertNull(router.route("hotels/1"));
+    }
+
+    @Test
+    public void caseInsensitiveRoutes() {
+        pathMatcher.setCaseSensitive(false);
+        router.addRoute("/Hotels/New", "new");
+        router.addRoute("/hotels/{hotel}", "hotel");
+        assertEquals("new", router.route("/HOTELS/new"));
+        assertEquals("hotel", router.route("/hotels/1"));
+    }
+
+    @Test
+    public void addExistingPatternReplacesTarget() {
+        assertNull(router.addRoute("/hotels", "first"));
+        assertEquals("first", router.addRoute("/hotels", "second"));
+        assertEquals(1, router.size());
+        assertEquals("second", router.route("/hotels"));
+    }
+
+    @Test
+    public void sameResultAsSortingAllMatchingPatterns() {
+        Random random = new Random(42);
+        List<String> patterns = new ArrayList<String>();
+        for (int i = 0; i < 500; i++) {
+            String pattern = generate(random);
+            if (!patterns.contains(pattern)) {
+                patterns.add(pattern);
+                router.addRoute(pattern, pattern);
+            }
+        }
+        for (int i = 0; i < 2000; i++) {
+            String path = generate(random).replace("**", "a/b").replace("*", "x").replace("?", "o")
+                    .replace("{hotel}", "h").replace("{id:[0-9]+}", "3");
+            List<String> expected = new ArrayList<String>();
+            for (String pattern : patterns) {
+                if (pathMatcher.match(pattern, path)) {
+                    expected.add(pattern);
+                }
+            }
+            Collections.sort(expected, pathMatcher.getPatternComparator(path));
+            assertEquals(path, expected, router.getMatchingPatterns(path));
+        }
+    }
+
+    private static String generate(Random random) {
+        StringBuilder builder = new StringBuilder();
+        if (random.nextInt(4) > 0) {
+            builder.append('/');
+        }
+        int count = random.nextInt(5);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append('/');
+            }
+            builder.append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+        }
+        if (random.nextInt(6) == 0) {
+            builder.append('/');
+        }
+        return builder.toString();
+    }
+}
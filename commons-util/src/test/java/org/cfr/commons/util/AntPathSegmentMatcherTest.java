@@ -0,0 +1,70 @@
+package org.cfr.commons.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AntPathSegmentMatcherTest {
+
+    @Test
+    public void simpleSegmentsDoNotUseRegex() {
+        assertTrue(AntPathSegmentMatcher.compile("test") instanceof AntPathSegmentMatcher.LiteralSegmentMatcher);
+        assertTrue(AntPathSegmentMatcher.compile("test*") instanceof AntPathSegmentMatcher.PrefixSegmentMatcher);
+        assertTrue(AntPathSegmentMatcher.compile("*") instanceof AntPathSegmentMatcher.PrefixSegmentMatcher);
+        assertTrue(AntPathSegmentMatcher.compile("*.xml") instanceof AntPathSegmentMatcher.SuffixSegmentMatcher);
+        assertTrue(AntPathSegmentMatcher.compile("*bla*") instanceof AntPathSegmentMatcher.ContainsSegmentMatcher);
+        assertTrue(AntPathSegmentMatcher.compile("t?st") instanceof AntPathSegmentMatcher.QuestionMarkSegmentMatcher);
+        assertTrue(AntPathSegmentMatcher.compile("{var}") instanceof AntPathSegmentMatcher.RegexSegmentMatcher);
+        assertTrue(AntPathSegmentMatcher.compile("a*b*c") instanceof AntPathSegmentMatcher.RegexSegmentMatcher);
+    }
+
+    @Test
+    public void matchSegments() {
+        assertMatch("test", "test", true);
+        assertMatch("test", "tes", false);
+        assertMatch("test*", "testing", true);
+        assertMatch("test*", "tes", false);
+        assertMatch("*.xml", "context.xml", true);
+        assertMatch("*.xml", ".xml", true);
+        assertMatch("*.xml", "context.xmlx", false);
+        assertMatch("*bla*", "XXXblaXXXX", true);
+        assertMatch("*bla*", "XXXblXXXX", false);
+        assertMatch("t?st", "test", true);
+        assertMatch("t?st", "tst", false);
+        assertMatch("t?st", "t\ud83d\ude00st", true);
+    }
+
+    @Test
+    public void wildcardsDoNotMatchLineTerminators() {
+        assertMatch("*", "a\nb", false);
+        assertMatch("*.xml", "a\r.xml", false);
+        assertMatch("*bla*", "bla\u2028", false);
+        assertMatch("t?st", "t\nst", false);
+    }
+
+    @Test
+    public void matchRange() {
+        AntPathSegmentMatcher matcher = AntPathSegmentMatcher.compile("*.xml");
+        assertTrue(matcher.match("/web/context.xml/x", 5, 16, null));
+        assertFalse(matcher.match("/web/context.xml/x", 5, 18, null));
+        assertTrue(AntPathSegmentMatcher.compile("{name}.xml").match("/web/context.xml", 5, 16, null));
+    }
+
+    @Test
+    public void capturingGroupInVariableRegexMatches() {
+        assertTrue(AntPathSegmentMatcher.compile("{id:(\\d+)}.html").match("42.html", null));
+        assertFalse(AntPathSegmentMatcher.compile("{id:(\\d+)}.html").match("x.html", null));
+    }
+
+    @Test
+    public void nonCapturingGroupInVariableRegex() {
+        assertTrue(AntPathSegmentMatcher.compile("{id:(?:\\d+)}.html").match("42.html", null));
+    }
+
+    private static void assertMatch(String pattern, String str, boolean expected) {
+        assertEquals(pattern + " ~ " + str, new AntPathStringMatcher(pattern).matchStrings(str, null), expected);
+        assertEquals(pattern + " ~ " + str, AntPathSegmentMatcher.compile(pattern).match(str, null), expected);
+    }
+}
@@ -0,0 +1,77 @@
+package org.cfr.commons.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AntPathSetTest {
+
+    private static final String[] SEGMENTS = { "a", "b", "*", "**", "a*", "*b", "?", "{v}", "ab", "" };
+
+    @Test
+    public void matchingPatterns() {
+        AntPathSet excludes = new AntPathSet(Arrays.asList("**/.svn/**", "**/*.bak", "**/Thumbs.db", "/docs/*"));
+        assertEquals(Arrays.asList("**/.svn/**"), excludes.getMatchingPatterns("src/.svn/entries"));
+        assertEquals(Arrays.asList("**/*.bak"), excludes.getMatchingPatterns("docs/index.bak"));
+        assertEquals(Arrays.asList("/docs/*"), excludes.getMatchingPatterns("/docs/index.bak"));
+        assertTrue(excludes.matchesAny("a/b/Thumbs.db"));
+        assertFalse(excludes.matchesAny("a/b/index.html"));
+        assertTrue(new AntPathSet(Collections.<String> emptyList()).match("/a").isEmpty());
+    }
+
+    @Test
+    public void trailingSeparator() {
+        AntPathSet set = new AntPathSet(Arrays.asList("/test/*", "/test/", "/test", "/test/**"));
+        assertEquals(Arrays.asList("/test/*", "/test/", "/test/**"), set.getMatchingPatterns("/test/"));
+        assertEquals(Arrays.asList("/test", "/test/**"), set.getMatchingPatterns("/test"));
+    }
+
+    @Test
+    public void sameResultAsAntPathMatcher() {
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            List<String> patterns = new ArrayList<String>();
+            for (int i = 0; i < 40; i++) {
+                patterns.add(generate(random, SEGMENTS));
+            }
+            AntPathSet set = new AntPathSet(pathMatcher, patterns);
+            for (int i = 0; i < 200; i++) {
+                String path = generate(random, new String[] { "a", "b", "ab", "ba", "c", "" });
+                List<String> expected = new ArrayList<String>();
+                for (String pattern : patterns) {
+                    if (pathMatcher.match(pattern, path)) {
+                        expected.add(pattern);
+                    }
+                }
+                assertEquals(path, expected, set.getMatchingPatterns(path));
+            }
+        }
+    }
+
+    private static String generate(Random random, String[] segments) {
+        StringBuilder builder = new StringBuilder();
+        if (random.nextBoolean()) {
+            builder.append('/');
+        }
+        int count = random.nextInt(6);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append('/');
+            }
+            builder.append(segments[random.nextInt(segments.length)]);
+        }
+        if (random.nextInt(4) == 0) {
+            builder.append('/');
+        }
+        return builder.toString();
+    }
+}
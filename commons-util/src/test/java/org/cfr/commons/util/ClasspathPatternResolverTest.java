@@ -0,0 +1,127 @@
+package org.cfr.commons.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClasspathPatternResolverTest {
+
+    private File basedir;
+
+    private File jar;
+
+    private URLClassLoader classLoader;
+
+    private ClasspathPatternResolver resolver;
+
+    @Before
+    public void setUp() throws IOException {
+        basedir = Files.createTempDirectory("resolver").toFile();
+        File classes = new File(basedir, "classes");
+        for (String path : new String[] { "META-INF/beans.xml", "META-INF/spring/context.xml", "META-INF/MANIFEST.MF",
+                "shared/conf/a.xml", "shared/conf/sub/b.xml" }) {
+            File file = new File(classes, path);
+            file.getParentFile().mkdirs();
+            file.createNewFile();
+        }
+        jar = new File(basedir, "lib.jar");
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (String name : new String[] { "META-INF/", "META-INF/spring/", "META-INF/spring/jar.xml",
+                    "META-INF/spring/jar.properties", "org/cfr/Foo.class", "shared/", "shared/conf/",
+                    "shared/conf/a.xml", "shared/conf/sub/", "shared/conf/sub/b.xml" }) {
+                out.putNextEntry(new JarEntry(name));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        classLoader = new URLClassLoader(new URL[] { classes.toURI().toURL(), jar.toURI().toURL() }, null);
+        resolver = new ClasspathPatternResolver(classLoader, new AntPathMatcher());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        classLoader.close();
+        FileUtils.deleteDirectory(basedir);
+    }
+
+    @Test
+    public void resolveInAllRoots() throws IOException {
+        List<String> resources = resolve("classpath*:META-INF/**/*.xml");
+        assertEquals(3, resources.size());
+        assertTrue(resources.get(0).endsWith("classes/META-INF/beans.xml"));
+        assertTrue(resources.get(1).endsWith("classes/META-INF/spring/context.xml"));
+        assertTrue(resources.get(2).startsWith("jar:") && resources.get(2).endsWith("lib.jar!/META-INF/spring/jar.xml"));
+
+        assertEquals(3, resolve("classpath*:/META-INF/spring/*").size());
+        assertEquals(Collections.<String> emptyList(), resolve("classpath*:META-INF/**/*.txt"));
+    }
+
+    @Test
+    public void resolveInFirstRoot() throws IOException {
+        assertEquals(2, resolve("classpath:META-INF/**/*.xml").size());
+        assertEquals(1, resolve("classpath:META-INF/MANIFEST.MF").size());
+    }
+
+    @Test
+    public void jarAndDirectoryRootsResolveSamePaths() throws IOException {
+        assertSamePaths("classpath*:shared/**", "conf/a.xml", "conf/sub/b.xml");
+        assertSamePaths("classpath*:shared/*/", "conf/a.xml", "conf/sub/b.xml");
+        assertSamePaths("classpath*:shared/*/sub/", "conf/sub/b.xml");
+    }
+
+    @Test
+    public void jarIsIndexedOnce() throws IOException {
+        URL rootUrl = new URL("jar:" + jar.toURI().toURL() + "!/META-INF/");
+        URL jarFileUrl = ResourceUtils.extractJarFileURL(rootUrl);
+        ClasspathPatternResolver.JarIndex index = resolver.getJarIndex(rootUrl, jarFileUrl);
+        assertSame(index, resolver.getJarIndex(rootUrl, jarFileUrl));
+        assertEquals(3, index.getEntries("META-INF/spring/").size());
+        resolver.clearCache();
+        assertNotSame(index, resolver.getJarIndex(rootUrl, jarFileUrl));
+    }
+
+    private void assertSamePaths(String locationPattern, String... expected) throws IOException {
+        List<String> filePaths = new ArrayList<String>();
+        List<String> jarPaths = new ArrayList<String>();
+        for (String resource : resolve(locationPattern)) {
+            if (resource.startsWith("jar:")) {
+                jarPaths.add(resource.substring(resource.indexOf("!/shared/") + "!/shared/".length()));
+            } else {
+                filePaths.add(resource.substring(resource.indexOf("classes/shared/") + "classes/shared/".length()));
+            }
+        }
+        Collections.sort(filePaths);
+        Collections.sort(jarPaths);
+        assertEquals(locationPattern, Arrays.asList(expected), filePaths);
+        assertEquals(locationPattern, Arrays.asList(expected), jarPaths);
+    }
+
+    private List<String> resolve(String locationPattern) throws IOException {
+        List<String> resources = new ArrayList<String>();
+        for (URL url : resolver.getResources(locationPattern)) {
+            resources.add(url.toExternalForm());
+        }
+        return resources;
+    }
+}
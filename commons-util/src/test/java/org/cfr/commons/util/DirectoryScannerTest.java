@@ -0,0 +1,159 @@
+package org.cfr.commons.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DirectoryScannerTest {
+
+    private File basedir;
+
+    @Before
+    public void setUp() throws IOException {
+        basedir = Files.createTempDirectory("scanner").toFile();
+        for (String path : new String[] { "pom.xml", "src/main/java/A.java", "src/main/java/org/B.java",
+                "src/main/resources/log4j.xml", "src/test/java/ATest.java", "src/main/java/.svn/entries",
+                "target/classes/A.class" }) {
+            File file = new File(basedir, path);
+            file.getParentFile().mkdirs();
+            file.createNewFile();
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(basedir);
+    }
+
+    @Test
+    public void includeAll() throws IOException {
+        DirectoryScanner scanner = new DirectoryScanner(basedir);
+        assertEquals(7, scanner.scan().size());
+    }
+
+    @Test
+    public void includesAndExcludes() throws IOException {
+        DirectoryScanner scanner = new DirectoryScanner(basedir);
+        scanner.setIncludes("src/main/**/*.java", "*.xml");
+        assertEquals(Arrays.asList("pom.xml", "src/main/java/A.java", "src/main/java/org/B.java"), scan(scanner));
+
+        scanner.setExcludes("**/org/");
+        assertEquals(Arrays.asList("pom.xml", "src/main/java/A.java"), scan(scanner));
+    }
+
+    @Test
+    public void excludeDirectoryContents() throws IOException {
+        DirectoryScanner scanner = new DirectoryScanner(basedir);
+        scanner.setExcludes("**/.svn/**", "target/**", "src/*/java/**");
+        assertEquals(Arrays.asList("pom.xml", "src/main/resources/log4j.xml"), scan(scanner));
+    }
+
+    @Test
+    public void caseInsensitive() throws IOException {
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+        pathMatcher.setCaseSensitive(false);
+        DirectoryScanner scanner = new DirectoryScanner(basedir, pathMatcher);
+        scanner.setIncludes("SRC/TEST/**");
+        assertEquals(Arrays.asList("src/test/java/ATest.java"), scan(scanner));
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void missingBasedir() throws IOException {
+        new DirectoryScanner(new File(basedir, "missing")).scan();
+    }
+
+    @Test
+    public void iterateSelectsSameFiles() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            DirectoryScanner scanner = new DirectoryScanner(basedir);
+            scanner.setIncludes("src/**", "*.xml");
+            scanner.setExcludes("**/.svn/**");
+            // a queue of one path makes the walk wait for the consumer
+            assertEquals(scan(scanner), iterate(scanner.iterate(pool, 1)));
+            scanner.setExcludes("src/main/**");
+            assertEquals(scan(scanner), iterate(scanner.iterate(pool)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void closeStopsIteration() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            DirectoryScanIterator files = new DirectoryScanner(basedir).iterate(pool, 1);
+            assertTrue(files.hasNext());
+            files.next();
+            files.close();
+            assertFalse(files.hasNext());
+            // the walk ends once closed
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void blockedWalkDoesNotGrowPool() throws IOException, InterruptedException {
+        for (int i = 0; i < 32; i++) {
+            File directory = new File(basedir, "many/dir" + i);
+            directory.mkdirs();
+            new File(directory, "a.txt").createNewFile();
+            new File(directory, "b.txt").createNewFile();
+        }
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            DirectoryScanIterator files = new DirectoryScanner(basedir).iterate(pool, 1);
+            try {
+                // the iterator is not consumed: all the walkers end up waiting for room in the queue
+                Thread.sleep(500);
+                assertTrue("pool size " + pool.getPoolSize(), pool.getPoolSize() <= 2);
+            } finally {
+                files.close();
+            }
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<String> iterate(DirectoryScanIterator iterator) {
+        List<String> files = new ArrayList<String>();
+        try {
+            while (iterator.hasNext()) {
+                files.add(iterator.next());
+            }
+        } finally {
+            iterator.close();
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private static List<String> scan(DirectoryScanner scanner) throws IOException {
+        List<String> files = new ArrayList<String>(scanner.scan());
+        Collections.sort(files);
+        return files;
+    }
+}
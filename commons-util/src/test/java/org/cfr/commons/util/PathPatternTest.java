@@ -0,0 +1,88 @@
+package org.cfr.commons.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class PathPatternTest {
+
+    @Test
+    public void compile() {
+        CompilablePathMatcher pathMatcher = new AntPathMatcher();
+        PathPattern pattern = pathMatcher.compile("/hotels/{hotel}/**/*.html");
+        assertEquals("/hotels/{hotel}/**/*.html", pattern.getPattern());
+        assertSame(pattern, pathMatcher.compile("/hotels/{hotel}/**/*.html"));
+
+        assertTrue(pattern.match("/hotels/1/rooms/list.html"));
+        assertFalse(pattern.match("/hotels/1/rooms/list.jsp"));
+        assertTrue(pattern.matchStart("/hotels/1/rooms"));
+        assertFalse(pattern.matchStart("/bookings"));
+        assertEquals("rooms/list.html", pattern.extractPathWithinPattern("/hotels/1/rooms/list.html"));
+
+        Map<String, String> expected = new HashMap<String, String>();
+        expected.put("hotel", "1");
+        assertEquals(expected, pattern.extractUriTemplateVariables("/hotels/1/rooms/list.html"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void extractUriTemplateVariablesNoMatch() {
+        new AntPathMatcher().compile("/hotels/{hotel}").extractUriTemplateVariables("/bookings/1");
+    }
+
+    @Test
+    public void keepPathSeparator() {
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+        pathMatcher.setPathSeparator(".");
+        PathPattern pattern = pathMatcher.compile("com.*");
+        pathMatcher.setPathSeparator("/");
+        assertTrue(pattern.match("com.cfr"));
+        assertFalse(pattern.match("com.cfr.util"));
+        assertTrue(pathMatcher.match("com.*", "com.cfr.util"));
+    }
+
+    @Test
+    public void sameResultAsPathMatcher() {
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+        String[] patterns = { "/a/*", "/a/**", "/a/**/b", "a/*", "/a/?b", "/*/", "/{x}/b" };
+        String[] paths = { "/a/b", "/a/", "/a", "/a/c/b", "a/b", "/a/ab", "/x/", "/x/b" };
+        for (String pattern : patterns) {
+            PathPattern compiledPattern = pathMatcher.compile(pattern);
+            for (String path : paths) {
+                assertEquals(pattern + " ~ " + path, pathMatcher.match(pattern, path), compiledPattern.match(path));
+                assertEquals(pattern + " ~ " + path, pathMatcher.matchStart(pattern, path),
+                    compiledPattern.matchStart(path));
+                assertEquals(pattern + " ~ " + path, pathMatcher.extractPathWithinPattern(pattern, path),
+                    compiledPattern.extractPathWithinPattern(path));
+            }
+        }
+    }
+
+    @Test
+    public void combine() {
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+        String[][] combinations = { { "/hotels", null }, { "/hotels", "/bookings" }, { "/hotels", "bookings" },
+                { "/hotels/*", "/bookings" }, { "/hotels/**", "/bookings" }, { "/hotels", "{hotel}" },
+                { "/hotels/*", "{hotel}" }, { "/hotels/**", "{hotel}" }, { "/*.html", "/hotels.html" },
+                { "/*.html", "/hotels" }, { "/*.html", "/*.txt" }, { "/hotels/", "/bookings" } };
+        for (String[] combination : combinations) {
+            PathPattern combined = pathMatcher.compile(combination[0]).combine(combination[1]);
+            assertEquals(pathMatcher.combine(combination[0], combination[1]), combined.getPattern());
+        }
+    }
+
+    @Test
+    public void combineIsMemoized() {
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+        PathPattern combined = pathMatcher.compile("/hotels/*").combine("{hotel}");
+        assertEquals("/hotels/{hotel}", combined.getPattern());
+        assertSame(combined, pathMatcher.compile("/hotels/*").combine("{hotel}"));
+        assertTrue(combined.match("/hotels/1"));
+        assertSame(combined, combined.combine(""));
+    }
+}
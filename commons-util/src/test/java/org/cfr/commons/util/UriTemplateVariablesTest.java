@@ -0,0 +1,60 @@
+package org.cfr.commons.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class UriTemplateVariablesTest {
+
+    private AntPathMatcher pathMatcher;
+
+    @Before
+    public void setUp() {
+        pathMatcher = new AntPathMatcher();
+    }
+
+    @Test
+    public void captureOffsets() {
+        UriTemplateVariables variables = pathMatcher.createUriTemplateVariables("/hotels/{hotel}/bookings/{booking}");
+        assertEquals(2, variables.size());
+        assertEquals("hotel", variables.getName(0));
+        assertEquals("booking", variables.getName(1));
+
+        String path = "/hotels/12/bookings/345";
+        assertTrue(variables.match(path));
+        assertEquals(8, variables.getStart(0));
+        assertEquals(10, variables.getEnd(0));
+        assertEquals("12", variables.getValue(0));
+        assertEquals("345", variables.getValue("booking"));
+        assertEquals(pathMatcher.extractUriTemplateVariables(variables.getPattern(), path), variables.toMap());
+    }
+
+    @Test
+    public void holderIsReusable() {
+        UriTemplateVariables variables = pathMatcher.createUriTemplateVariables("/**/{name}.{ext:[a-z]+}");
+        assertTrue(variables.match("/docs/cvs/commit.html"));
+        assertEquals("commit", variables.getValue("name"));
+        assertEquals("html", variables.getValue("ext"));
+
+        assertFalse(variables.match("/docs/commit.HTML"));
+        assertTrue(variables.match("/index.xml"));
+        assertEquals("index", variables.getValue("name"));
+        assertEquals("xml", variables.getValue(1));
+        assertNull(variables.getValue("other"));
+    }
+
+    @Test
+    public void sameResultAsExtractUriTemplateVariables() {
+        String[][] cases = { { "/{a}/{b}", "/x/y" }, { "/{a}/**/{a}", "/x/y/z" }, { "/{a}-{b}/*", "/1-2/3" },
+                { "{a}/{b:[0-9]+}", "x/42" } };
+        for (String[] testCase : cases) {
+            UriTemplateVariables variables = pathMatcher.createUriTemplateVariables(testCase[0]);
+            assertTrue(variables.match(testCase[1]));
+            assertEquals(pathMatcher.extractUriTemplateVariables(testCase[0], testCase[1]), variables.toMap());
+        }
+    }
+}
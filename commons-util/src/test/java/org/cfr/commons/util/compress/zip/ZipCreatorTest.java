@@ -1,8 +1,21 @@
 package org.cfr.commons.util.compress.zip;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 
 import org.cfr.commons.util.ResourceUtils;
 import org.cfr.commons.util.compress.AbstractJunitTest;
@@ -19,4 +32,55 @@ public class ZipCreatorTest extends AbstractJunitTest {
         creator.inflate(source);
         assertTrue(destination.exists());
     }
+
+    @Test
+    public void testInflateDirectoryInParallel() throws Exception {
+        File source = new File(WORK_HOME, "source");
+        Random random = new Random(7);
+        for (String path : new String[] { "a.txt", "docs/b.txt", "docs/sub/c.bin", "lib/d.bin", "e/empty.txt" }) {
+            byte[] content = new byte[random.nextInt(50000)];
+            random.nextBytes(content);
+            File file = new File(source, path);
+            file.getParentFile().mkdirs();
+            FileUtils.writeByteArrayToFile(file, content);
+        }
+        new File(source, "empty").mkdirs();
+
+        File sequential = new File(WORK_HOME, "sequential.zip");
+        new ZipCreator(sequential).inflate(new File[] { source });
+        File parallel = new File(WORK_HOME, "parallel.zip");
+        ZipCreator creator = new ZipCreator(parallel);
+        creator.setParallelism(4);
+        creator.inflate(new File[] { source });
+
+        ZipFile expected = new ZipFile(sequential);
+        ZipFile actual = new ZipFile(parallel);
+        try {
+            List<String> names = getEntryNames(expected);
+            assertEquals(names, getEntryNames(actual));
+            for (String name : names) {
+                assertArrayEquals(read(expected, name), read(actual, name));
+            }
+        } finally {
+            expected.close();
+            actual.close();
+        }
+    }
+
+    private static List<String> getEntryNames(ZipFile zipFile) {
+        List<String> names = new ArrayList<String>();
+        for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements();) {
+            names.add(entries.nextElement().getName());
+        }
+        return names;
+    }
+
+    private static byte[] read(ZipFile zipFile, String name) throws IOException {
+        InputStream in = zipFile.getInputStream(zipFile.getEntry(name));
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
 }
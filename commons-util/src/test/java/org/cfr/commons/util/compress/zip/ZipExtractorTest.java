@@ -1,13 +1,30 @@
 package org.cfr.commons.util.compress.zip;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 
 import org.cfr.commons.util.compress.AbstractJunitTest;
 import org.junit.Test;
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.ResourceLoader;
 
 public class ZipExtractorTest extends AbstractJunitTest {
@@ -57,4 +74,119 @@ public class ZipExtractorTest extends AbstractJunitTest {
         assertFalse(new File(destination, "sub-folder/sub-folder.tst").exists());
         new File(destination, "sub-folder.tst").delete();
     }
+
+    @Test
+    public void testRandomAccessLookup() throws Exception {
+        ZipExtractor extractor = new ZipExtractor(
+                resourceLoader.getResource("classpath:org/cfr/commons/util/compress/zip/testzip.zip"));
+        ZipExtractor streamingExtractor = new ZipExtractor(
+                resourceLoader.getResource("classpath:org/cfr/commons/util/compress/zip/testzip.zip"));
+        streamingExtractor.setRandomAccess(false);
+
+        assertTrue(extractor.entryExist("*.tst"));
+        assertFalse(extractor.entryExist("*.zip"));
+        assertArrayEquals(read(streamingExtractor.deflate("*.tst")), read(extractor.deflate("*.tst")));
+        assertNull(extractor.deflate("*.zip"));
+    }
+
+    @Test
+    public void testRandomAccessDeflateSameAsStreaming() throws Exception {
+        byte[] content = new byte[20000];
+        new Random(3).nextBytes(content);
+        File archive = createArchive(content);
+        ZipExtractor extractor = new ZipExtractor(new FileSystemResource(archive));
+
+        assertSameDeflation(archive, extractor);
+        assertTrue(extractor.entryExist("r\u00E9sum\u00E9.txt"));
+        assertArrayEquals(content, read(extractor.deflate("stored.txt")));
+    }
+
+    @Test
+    public void testConcurrentDeflateSameAsStreaming() throws Exception {
+        byte[] content = new byte[20000];
+        new Random(4).nextBytes(content);
+        File archive = createArchive(content);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ZipExtractor extractor = new ZipExtractor(new FileSystemResource(archive));
+            extractor.setExecutor(executor);
+            extractor.setMaxOpenFiles(2);
+            assertSameDeflation(archive, extractor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static File createArchive(byte[] content) throws IOException {
+        File archive = new File(WORK_HOME, "random.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            out.putNextEntry(new ZipEntry("docs/"));
+            putEntry(out, "docs/r\u00E9sum\u00E9.txt", content, ZipEntry.DEFLATED);
+            putEntry(out, "docs/stored.txt", content, ZipEntry.STORED);
+            putEntry(out, "docs/sub/stored.txt", new byte[] { 1, 2, 3 }, ZipEntry.DEFLATED);
+            putEntry(out, "empty.txt", new byte[0], ZipEntry.DEFLATED);
+        } finally {
+            out.close();
+        }
+        return archive;
+    }
+
+    private static void assertSameDeflation(File archive, ZipExtractor extractor) throws IOException {
+        ZipExtractor streamingExtractor = new ZipExtractor(new FileSystemResource(archive));
+        streamingExtractor.setRandomAccess(false);
+        for (String pattern : new String[] { null, "*.txt", "r?sum?.txt", "stored.*" }) {
+            for (boolean flat : new boolean[] { false, true }) {
+                File expected = new File(WORK_HOME, "expected");
+                File actual = new File(WORK_HOME, "actual");
+                expected.mkdirs();
+                actual.mkdirs();
+                streamingExtractor.deflate(expected, pattern, flat);
+                extractor.deflate(actual, pattern, flat);
+                assertSameTree(expected, actual);
+                FileUtils.deleteDirectory(expected);
+                FileUtils.deleteDirectory(actual);
+            }
+        }
+    }
+
+    private static void putEntry(ZipOutputStream out, String name, byte[] content, int method) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(method);
+        if (method == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setSize(content.length);
+            entry.setCrc(crc.getValue());
+        }
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+    }
+
+    private static void assertSameTree(File expected, File actual) throws IOException {
+        String[] expectedNames = expected.list();
+        String[] actualNames = actual.list();
+        Arrays.sort(expectedNames);
+        Arrays.sort(actualNames);
+        assertEquals(Arrays.asList(expectedNames), Arrays.asList(actualNames));
+        for (String name : expectedNames) {
+            File expectedFile = new File(expected, name);
+            File actualFile = new File(actual, name);
+            if (expectedFile.isDirectory()) {
+                assertTrue(actualFile.isDirectory());
+                assertSameTree(expectedFile, actualFile);
+            } else {
+                assertTrue(FileUtils.contentEquals(expectedFile, actualFile));
+            }
+        }
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
 }